@@ -0,0 +1,52 @@
+package com.example.aispringboot.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+
+/**
+ * 二级缓存区域按字节数限制时的权重（caffeine.conf 中 policy.maximum.weigher）。
+ * 写入时只按拆解后的字段粗略估算：字符串按字符数、字节数组按长度，其他字段按固定值，不做序列化。
+ */
+public class EstimatedSizeWeigher implements Weigher<Object, Object> {
+
+    // 缓存键、Hibernate 的条目包装和对象头的大致开销
+    private static final int ENTRY_OVERHEAD = 256;
+
+    // 引用加一个装箱的基本类型
+    private static final int FIELD_SIZE = 16;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long size = ENTRY_OVERHEAD + sizeOf(unwrap(value));
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    // READ_WRITE 策略的条目包在 Item 里，软锁没有值
+    private Object unwrap(Object value) {
+        if (value instanceof AbstractReadWriteAccess.Lockable) {
+            return ((AbstractReadWriteAccess.Lockable) value).getValue();
+        }
+        return value;
+    }
+
+    private long sizeOf(Object value) {
+        if (value instanceof CacheEntry) {
+            return sizeOf(((CacheEntry) value).getDisassembledState());
+        }
+        if (value instanceof Object[]) {
+            long size = FIELD_SIZE;
+            for (Object element : (Object[]) value) {
+                size += sizeOf(element);
+            }
+            return size;
+        }
+        if (value instanceof CharSequence) {
+            return FIELD_SIZE + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof byte[]) {
+            return FIELD_SIZE + ((byte[]) value).length;
+        }
+        return FIELD_SIZE;
+    }
+}
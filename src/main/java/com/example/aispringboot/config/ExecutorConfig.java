@@ -0,0 +1,74 @@
+package com.example.aispringboot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // 导入任务调度线程：同一时间只跑少量导入任务，多余的排队
+    @Bean
+    public ThreadPoolTaskExecutor importJobExecutor(@Value("${app.import.concurrent-jobs:2}") int concurrentJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrentJobs);
+        executor.setMaxPoolSize(concurrentJobs);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("import-job-");
+        return executor;
+    }
+
+    // 导入解析线程池：有界队列，队列满时由提交线程自己执行，形成背压
+    @Bean
+    public ThreadPoolTaskExecutor importWorkerExecutor(@Value("${app.import.workers:0}") int workers) {
+        int size = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(size * 4);
+        executor.setThreadNamePrefix("import-worker-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // 存储迁移线程池：移动文件以 I/O 为主，线程数单独配置
+    @Bean
+    public ThreadPoolTaskExecutor storageMigrationExecutor(@Value("${app.storage.migration-workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers * 4);
+        executor.setThreadNamePrefix("storage-migration-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // 缩略图线程池：解码图片占 CPU 和内存，线程数和队列都有上限，队列满时拒绝，由按需生成兜底
+    @Bean
+    public ThreadPoolTaskExecutor thumbnailExecutor(@Value("${app.thumbnail.workers:0}") int workers,
+                                                    @Value("${app.thumbnail.queue-capacity:200}") int queueCapacity) {
+        int size = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("thumbnail-");
+        return executor;
+    }
+
+    // 密码校验线程池：BCrypt 是纯 CPU 计算，线程数按核数，队列有界，满了直接拒绝，登录高峰不占用请求线程
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor(@Value("${app.auth.hash-workers:0}") int workers,
+                                                       @Value("${app.auth.hash-queue-capacity:200}") int queueCapacity) {
+        int size = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        return executor;
+    }
+}
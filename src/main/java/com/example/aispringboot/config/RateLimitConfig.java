@@ -0,0 +1,14 @@
+package com.example.aispringboot.config;
+
+import com.example.aispringboot.ratelimit.RateLimitProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 限流：app.rate-limit.limits.<类别>.* 配置各类接口的额度，REST 请求由安全过滤链中的 RateLimitFilter 检查，
+ * STOMP 消息由 WebSocketConfig 注册的 RateLimitChannelInterceptor 检查。
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+}
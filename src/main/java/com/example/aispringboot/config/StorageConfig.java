@@ -0,0 +1,89 @@
+package com.example.aispringboot.config;
+
+import com.example.aispringboot.storage.LocalFileStore;
+import com.example.aispringboot.storage.ObjectStore;
+import com.example.aispringboot.storage.S3ObjectStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+
+@Configuration
+public class StorageConfig {
+
+    @Value("${app.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${app.storage.s3.bucket:}")
+    private String bucket;
+
+    @Value("${app.storage.s3.prefix:attachments/}")
+    private String prefix;
+
+    @Value("${app.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String secretKey;
+
+    // MinIO 等自建服务一般只支持路径风格的地址
+    @Value("${app.storage.s3.path-style:true}")
+    private boolean pathStyle;
+
+    @Value("${app.storage.s3.part-size:8388608}")
+    private long partSize;
+
+    // 附件后端：local 为上传目录，s3 为 S3 协议对象存储；临时文件和缩略图始终在本地
+    @Bean
+    @Primary
+    public ObjectStore objectStore(@Value("${app.storage.backend:local}") String backend,
+                                   LocalFileStore localFileStore) {
+        if ("local".equalsIgnoreCase(backend)) {
+            return localFileStore;
+        }
+        if (!"s3".equalsIgnoreCase(backend)) {
+            throw new IllegalArgumentException("Unknown storage backend: " + backend);
+        }
+        if (bucket.isEmpty()) {
+            throw new IllegalArgumentException("app.storage.s3.bucket is required for the s3 backend");
+        }
+
+        S3Configuration serviceConfiguration = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+        S3ClientBuilder clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials())
+                .serviceConfiguration(serviceConfiguration);
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials())
+                .serviceConfiguration(serviceConfiguration);
+        if (!endpoint.isEmpty()) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+        return new S3ObjectStore(clientBuilder.build(), presignerBuilder.build(), bucket, prefix, partSize,
+                localFileStore);
+    }
+
+    // 未配置密钥时使用环境变量、实例角色等默认来源
+    private AwsCredentialsProvider credentials() {
+        if (accessKey.isEmpty()) {
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+}
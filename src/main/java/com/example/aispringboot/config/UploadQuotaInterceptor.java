@@ -0,0 +1,47 @@
+package com.example.aispringboot.config;
+
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.QuotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 上传前按 Content-Length 检查用户配额。multipart 设为延迟解析，这里在请求体落盘之前执行，
+ * 明显超额的上传直接返回 413；精确检查（含文档配额）在控制器里解析之后进行。
+ */
+@Component
+public class UploadQuotaInterceptor implements HandlerInterceptor {
+
+    // multipart 边界和各部分头部的大致开销，避免刚好够用的上传被误拒
+    private static final long MULTIPART_OVERHEAD = 16 * 1024;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        long contentLength = request.getContentLengthLong();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!"POST".equals(request.getMethod()) || contentLength <= 0 || authentication == null
+                || !(authentication.getPrincipal() instanceof UserDetailsImpl)) {
+            return true;
+        }
+        Long userId = ((UserDetailsImpl) authentication.getPrincipal()).getId();
+        if (quotaService.hasRoomFor(userId, Math.max(contentLength - MULTIPART_OVERHEAD, 0))) {
+            return true;
+        }
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Storage quota exceeded\"}");
+        return false;
+    }
+}
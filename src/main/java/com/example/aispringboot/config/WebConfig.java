@@ -1,33 +1,89 @@
 package com.example.aispringboot.config;
 
+import com.example.aispringboot.service.StaticPageService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
-import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // ContentVersionStrategy 生成的文件名：name-<md5>.ext
+    private static final Pattern FINGERPRINTED = Pattern.compile(".+-[0-9a-f]{32}\\.[^/]+");
+
+    // 带指纹的地址内容永不变化；Spring 5 的 CacheControl 还不支持 immutable，直接写头
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()
+            .getHeaderValue() + ", immutable";
+
+    @Autowired
+    private StaticPageService staticPageService;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // 样式和脚本：按内容哈希加指纹，构建时生成的 .br/.gz 按 Accept-Encoding 选用，解析结果缓存
+        addAssetHandler(registry, "/css/**", "classpath:/static/css/");
+        addAssetHandler(registry, "/js/**", "classpath:/static/js/");
+
+        // 其余路径都是前端路由，返回渲染好的页面，不再逐个请求检查 classpath
         registry.addResourceHandler("/**")
                 .addResourceLocations("classpath:/static/")
-                .resourceChain(true)
-                .addResolver(new PathResourceResolver() {
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(false)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new AbstractResourceResolver() {
+                    @Override
+                    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                                               List<? extends Resource> locations,
+                                                               ResourceResolverChain chain) {
+                        return staticPageService.page(requestPath);
+                    }
+
                     @Override
-                    protected Resource getResource(String resourcePath, Resource location) throws IOException {
-                        Resource requestedResource = location.createRelative(resourcePath);
-                        return requestedResource.exists() && requestedResource.isReadable() ? requestedResource 
-                                : new ClassPathResource("/static/index.html");
+                    protected String resolveUrlPathInternal(String resourceUrlPath,
+                                                            List<? extends Resource> locations,
+                                                            ResourceResolverChain chain) {
+                        return resourceUrlPath;
                     }
                 });
     }
 
+    private void addAssetHandler(ResourceHandlerRegistry registry, String pattern, String location) {
+        registry.addResourceHandler(pattern)
+                .addResourceLocations(location)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                boolean fingerprinted = FINGERPRINTED.matcher(request.getRequestURI()).matches();
+                response.setHeader(HttpHeaders.CACHE_CONTROL, fingerprinted ? IMMUTABLE : "no-cache");
+                return true;
+            }
+        }).addPathPatterns("/css/**", "/js/**");
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/").setViewName("forward:/index.html");
@@ -35,4 +91,4 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/register").setViewName("forward:/index.html");
         registry.addViewController("/documents/**").setViewName("forward:/index.html");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.ratelimit.RateLimiter;
+import com.example.aispringboot.service.LoginService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// 认证和访问控制的运行状态：密码校验线程池的排队深度和耗时、限流拒绝次数
+@RestController
+@RequestMapping("/api/admin/auth")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AuthAdminController {
+
+    @Autowired
+    private LoginService loginService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @GetMapping("/password-hashing")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStats() {
+        return ResponseEntity.ok(loginService.stats());
+    }
+
+    @GetMapping("/rate-limits")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.stats());
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.validation.Valid;
@@ -12,11 +13,8 @@ import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,21 +27,16 @@ import com.example.aispringboot.entity.Role;
 import com.example.aispringboot.entity.User;
 import com.example.aispringboot.payload.request.LoginRequest;
 import com.example.aispringboot.payload.request.SignupRequest;
-import com.example.aispringboot.payload.response.JwtResponse;
 import com.example.aispringboot.payload.response.MessageResponse;
 import com.example.aispringboot.repository.RoleRepository;
 import com.example.aispringboot.repository.UserRepository;
-import com.example.aispringboot.security.jwt.JwtUtils;
-import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.LoginService;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
-    @Autowired
-    AuthenticationManager authenticationManager;
-
     @Autowired
     UserRepository userRepository;
 
@@ -54,44 +47,29 @@ public class AuthController {
     PasswordEncoder encoder;
 
     @Autowired
-    JwtUtils jwtUtils;
+    LoginService loginService;
 
+    // 密码校验在独立线程池执行，请求线程立即释放；线程池排满时返回 503
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         logger.info("Login attempt for username: {}", loginRequest.getUsername());
-        logger.info("Login request body: {}", loginRequest);
-        
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
-
-            logger.info("Authentication successful for username: {}", loginRequest.getUsername());
-            
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtils.generateJwtToken(authentication);
-            logger.info("JWT generated for username: {}", loginRequest.getUsername());
 
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            logger.info("User details: {}", userDetails);
-            
-            List<String> roles = userDetails.getAuthorities().stream()
-                    .map(item -> item.getAuthority())
-                    .collect(Collectors.toList());
-            logger.info("User roles: {}", roles);
-
-            JwtResponse response = new JwtResponse(jwt, 
-                                                 userDetails.getId(), 
-                                                 userDetails.getUsername(), 
-                                                 userDetails.getEmail(), 
-                                                 roles);
-            logger.info("Login response: {}", response);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Login failed for username: {}", loginRequest.getUsername());
-            logger.error("Login error: {}", e.getMessage());
-            logger.error("Login error stack trace:", e);
-            throw e;
+        try {
+            return loginService.signin(loginRequest)
+                    .whenComplete((response, error) -> {
+                        if (error != null) {
+                            logger.error("Login failed for username: {}", loginRequest.getUsername());
+                            logger.error("Login error: {}", error.getMessage());
+                        } else {
+                            logger.info("Authentication successful for username: {}", loginRequest.getUsername());
+                        }
+                    })
+                    .thenApply(ResponseEntity::ok);
+        } catch (LoginService.LoginBusyException e) {
+            logger.warn("Login rejected for username {}: {}", loginRequest.getUsername(), e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .body(new MessageResponse("Error: Server is busy, please try again")));
         }
     }
 
@@ -1,19 +1,21 @@
 package com.example.aispringboot.controller;
 
-import com.example.aispringboot.model.Document;
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.User;
 import com.example.aispringboot.model.DocumentActivity;
 import com.example.aispringboot.model.DocumentCollaborator;
 import com.example.aispringboot.model.DocumentVersion;
-import com.example.aispringboot.model.User;
 import com.example.aispringboot.repository.DocumentActivityRepository;
 import com.example.aispringboot.repository.DocumentCollaboratorRepository;
 import com.example.aispringboot.repository.DocumentRepository;
 import com.example.aispringboot.repository.DocumentVersionRepository;
 import com.example.aispringboot.repository.UserRepository;
+import com.example.aispringboot.service.TitleSuggestService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -42,9 +44,13 @@ public class CollaborationController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TitleSuggestService titleSuggestService;
+
     // 获取文档版本历史
     @GetMapping("/{id}/versions")
     @PreAuthorize("hasRole('USER')")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getDocumentVersions(@PathVariable Long id, Authentication authentication) {
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
@@ -77,6 +83,7 @@ public class CollaborationController {
     // 获取文档活动历史
     @GetMapping("/{id}/activities")
     @PreAuthorize("hasRole('USER')")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getDocumentActivities(@PathVariable Long id, Authentication authentication) {
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
@@ -107,6 +114,7 @@ public class CollaborationController {
     // 获取文档协作者
     @GetMapping("/{id}/collaborators")
     @PreAuthorize("hasRole('USER')")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getDocumentCollaborators(@PathVariable Long id, Authentication authentication) {
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
@@ -212,6 +220,7 @@ public class CollaborationController {
         document.setContent(version.getContent());
         document.setUpdatedAt(LocalDateTime.now());
         documentRepository.save(document);
+        titleSuggestService.index(document);
         
         // 记录活动
         DocumentActivity activity = new DocumentActivity(
@@ -1,13 +1,15 @@
 package com.example.aispringboot.controller;
 
-import com.example.aispringboot.model.Document;
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.User;
 import com.example.aispringboot.model.DocumentActivity;
 import com.example.aispringboot.model.DocumentCollaborator;
-import com.example.aispringboot.model.User;
 import com.example.aispringboot.repository.DocumentActivityRepository;
 import com.example.aispringboot.repository.DocumentCollaboratorRepository;
 import com.example.aispringboot.repository.DocumentRepository;
 import com.example.aispringboot.repository.UserRepository;
+import com.example.aispringboot.service.TitleSuggestService;
+import com.example.aispringboot.service.TrendingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -30,6 +32,12 @@ public class CollaborationWebSocketController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TitleSuggestService titleSuggestService;
+
+    @Autowired
+    private TrendingService trendingService;
+
     @Autowired
     private DocumentCollaboratorRepository documentCollaboratorRepository;
 
@@ -58,6 +66,9 @@ public class CollaborationWebSocketController {
         document.setContent(content);
         document.setUpdatedAt(LocalDateTime.now());
         documentRepository.save(document);
+        if (Boolean.TRUE.equals(document.getIsPublic())) {
+            trendingService.recordEdit(documentId);
+        }
         
         // 更新协作者的最后活动时间
         updateCollaboratorActivity(document, user);
@@ -189,6 +200,7 @@ public class CollaborationWebSocketController {
         document.setTitle(title);
         document.setUpdatedAt(LocalDateTime.now());
         documentRepository.save(document);
+        titleSuggestService.index(document);
         
         // 更新协作者的最后活动时间
         updateCollaboratorActivity(document, user);
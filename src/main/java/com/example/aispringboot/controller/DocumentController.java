@@ -2,18 +2,35 @@ package com.example.aispringboot.controller;
 
 import com.example.aispringboot.entity.Document;
 import com.example.aispringboot.entity.User;
+import com.example.aispringboot.payload.request.BatchIdsRequest;
+import com.example.aispringboot.payload.request.BatchVisibilityRequest;
 import com.example.aispringboot.payload.response.MessageResponse;
 import com.example.aispringboot.repository.DocumentRepository;
 import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.DocumentBatchService;
+import com.example.aispringboot.service.DocumentLikeService;
+import com.example.aispringboot.service.DocumentRenderService;
+import com.example.aispringboot.service.TitleSuggestService;
+import com.example.aispringboot.service.TrashService;
+import com.example.aispringboot.service.TrendingService;
+import com.example.aispringboot.service.WorkspaceExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -24,6 +41,31 @@ public class DocumentController {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private DocumentBatchService documentBatchService;
+
+    @Autowired
+    private WorkspaceExportService workspaceExportService;
+
+    @Autowired
+    private TrashService trashService;
+
+    @Autowired
+    private DocumentLikeService documentLikeService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private TitleSuggestService titleSuggestService;
+
+    @Autowired
+    private DocumentRenderService documentRenderService;
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private static final int MAX_BATCH_SIZE = 500;
+
     @GetMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<List<Document>> getMyDocuments() {
@@ -36,12 +78,40 @@ public class DocumentController {
         return ResponseEntity.ok(documents);
     }
 
+    // 导出当前用户的全部文档和附件（ZIP 流式输出）
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportDocuments() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Long userId = userDetails.getId();
+        
+        StreamingResponseBody body = outputStream -> workspaceExportService.export(userId, outputStream);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"workspace-" + userDetails.getUsername() + ".zip\"")
+                .body(body);
+    }
+
     @GetMapping("/public")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Document>> getPublicDocuments() {
         List<Document> documents = documentRepository.findByIsPublicTrueAndIsDeletedFalseOrderByUpdatedAtDesc();
         return ResponseEntity.ok(documents);
     }
 
+    // 热门公开文档，直接从内存榜单返回
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingDocuments(@RequestParam(defaultValue = TrendingService.DAY) String window,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        if (!trendingService.hasWindow(window)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Unknown window: " + window));
+        }
+        return ResponseEntity.ok(trendingService.getTrending(window, Math.max(limit, 1)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getDocument(@PathVariable Long id) {
         Optional<Document> documentOpt = documentRepository.findByIdAndIsDeletedFalse(id);
@@ -58,6 +128,9 @@ public class DocumentController {
                 // 增加浏览次数
                 document.setViewCount(document.getViewCount() + 1);
                 documentRepository.save(document);
+                if (document.getIsPublic()) {
+                    trendingService.recordView(id);
+                }
                 
                 return ResponseEntity.ok(document);
             } else {
@@ -68,6 +141,43 @@ public class DocumentController {
         return ResponseEntity.notFound().build();
     }
 
+    // 渲染后的 HTML，按修订号缓存，客户端可用 ETag 协商
+    @GetMapping("/{id}/html")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getDocumentHtml(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Document> documentOpt = documentRepository.findByIdAndIsDeletedFalse(id);
+        
+        if (documentOpt.isPresent()) {
+            Document document = documentOpt.get();
+            
+            // 检查权限：公开文档或自己的文档
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (!document.getIsPublic() &&
+                !(authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl &&
+                  ((UserDetailsImpl) authentication.getPrincipal()).getId().equals(document.getUser().getId()))) {
+                return ResponseEntity.status(403).body(new MessageResponse("Access denied"));
+            }
+            // 304 也是一次阅读
+            if (document.getIsPublic()) {
+                trendingService.recordView(id);
+            }
+            
+            String etag = "\"" + id + "-" + documentRenderService.revisionOf(document) + "\"";
+            if (etag.equals(ifNoneMatch)) {
+                return ResponseEntity.status(304).eTag(etag).build();
+            }
+            
+            return ResponseEntity.ok()
+                    .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                    .eTag(etag)
+                    .cacheControl(document.getIsPublic() ? CacheControl.noCache().cachePublic() : CacheControl.noCache().cachePrivate())
+                    .body(documentRenderService.render(document));
+        }
+        
+        return ResponseEntity.notFound().build();
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> createDocument(@RequestBody Document documentRequest) {
@@ -83,6 +193,7 @@ public class DocumentController {
         document.setIsPublic(documentRequest.getIsPublic() != null ? documentRequest.getIsPublic() : false);
         
         Document savedDocument = documentRepository.save(document);
+        titleSuggestService.index(savedDocument);
         return ResponseEntity.ok(savedDocument);
     }
 
@@ -108,6 +219,10 @@ public class DocumentController {
             document.setUpdatedAt(LocalDateTime.now());
             
             Document updatedDocument = documentRepository.save(document);
+            titleSuggestService.index(updatedDocument);
+            if (Boolean.TRUE.equals(updatedDocument.getIsPublic())) {
+                trendingService.recordEdit(id);
+            }
             return ResponseEntity.ok(updatedDocument);
         }
         
@@ -131,7 +246,9 @@ public class DocumentController {
             }
             
             document.setIsDeleted(true);
+            document.setDeletedAt(LocalDateTime.now());
             documentRepository.save(document);
+            titleSuggestService.remove(id);
             
             return ResponseEntity.ok(new MessageResponse("Document deleted successfully"));
         }
@@ -139,7 +256,119 @@ public class DocumentController {
         return ResponseEntity.notFound().build();
     }
 
+    // 回收站：已删除且仍可恢复的文档
+    @GetMapping("/trash")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<Document>> getTrash() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        User user = new User();
+        user.setId(userDetails.getId());
+        
+        List<Document> documents = documentRepository.findByUserAndIsDeletedTrueOrderByDeletedAtDesc(user);
+        documents.removeIf(document -> !trashService.isRestorable(document));
+        return ResponseEntity.ok(documents);
+    }
+
+    // 从回收站恢复文档
+    @PostMapping("/{id}/restore")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> restoreDocument(@PathVariable Long id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        Optional<Document> documentOpt = documentRepository.findByIdAndIsDeletedTrue(id);
+        
+        if (documentOpt.isPresent()) {
+            Document document = documentOpt.get();
+            
+            // 检查是否是文档所有者
+            if (!document.getUser().getId().equals(userDetails.getId())) {
+                return ResponseEntity.status(403).body(new MessageResponse("Access denied"));
+            }
+            
+            if (!trashService.isRestorable(document)) {
+                return ResponseEntity.status(410).body(new MessageResponse(
+                        "Document can only be restored within " + trashService.getRetentionDays() + " days"));
+            }
+            
+            document.setIsDeleted(false);
+            document.setDeletedAt(null);
+            Document restoredDocument = documentRepository.save(document);
+            titleSuggestService.index(restoredDocument);
+            
+            return ResponseEntity.ok(restoredDocument);
+        }
+        
+        return ResponseEntity.notFound().build();
+    }
+
+    // 点赞
+    @PostMapping("/{id}/like")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> likeDocument(@PathVariable Long id) {
+        return changeLike(id, true);
+    }
+
+    // 取消点赞
+    @DeleteMapping("/{id}/like")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> unlikeDocument(@PathVariable Long id) {
+        return changeLike(id, false);
+    }
+
+    // 当前用户是否已点赞及点赞数
+    @GetMapping("/{id}/like")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getLike(@PathVariable Long id) {
+        return changeLike(id, null);
+    }
+
+    private ResponseEntity<?> changeLike(Long id, Boolean like) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        Optional<Document> documentOpt = documentRepository.findByIdAndIsDeletedFalse(id);
+        if (!documentOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Document document = documentOpt.get();
+        if (!document.getIsPublic() && !document.getUser().getId().equals(userDetails.getId())) {
+            return ResponseEntity.status(403).body(new MessageResponse("Access denied"));
+        }
+        
+        if (Boolean.TRUE.equals(like)) {
+            if (documentLikeService.like(id, userDetails.getId()) && document.getIsPublic()) {
+                trendingService.recordLike(id);
+            }
+        } else if (Boolean.FALSE.equals(like)) {
+            if (documentLikeService.unlike(id, userDetails.getId()) && document.getIsPublic()) {
+                trendingService.recordUnlike(id);
+            }
+        }
+        
+        long likeCount = document.getLikeCount() + documentLikeService.pendingDelta(id);
+        return ResponseEntity.ok(Map.of(
+                "liked", documentLikeService.hasLiked(id, userDetails.getId()),
+                "likeCount", Math.max(likeCount, 0)));
+    }
+
+    // 标题前缀补全（支持拼音全拼和首字母），只查内存索引
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestTitles(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long currentUserId = null;
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl) {
+            currentUserId = ((UserDetailsImpl) authentication.getPrincipal()).getId();
+        }
+        
+        int size = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        return ResponseEntity.ok(titleSuggestService.suggest(q, currentUserId, size));
+    }
+
     @GetMapping("/search")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Document>> searchDocuments(@RequestParam String keyword) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
@@ -155,4 +384,50 @@ public class DocumentController {
         
         return ResponseEntity.ok(documents);
     }
+
+    // 批量获取文档
+    @PostMapping("/batch/get")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getDocuments(@Valid @RequestBody BatchIdsRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        return ResponseEntity.ok(documentBatchService.fetch(request.getIds(), userDetails.getId()));
+    }
+
+    // 批量创建文档
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> createDocuments(@RequestBody List<Document> documentRequests) {
+        if (documentRequests.isEmpty() || documentRequests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Batch size must be between 1 and " + MAX_BATCH_SIZE));
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        return ResponseEntity.ok(documentBatchService.create(documentRequests, userDetails.getId()));
+    }
+
+    // 批量删除文档
+    @PostMapping("/batch/delete")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> deleteDocuments(@Valid @RequestBody BatchIdsRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        return ResponseEntity.ok(documentBatchService.softDelete(request.getIds(), userDetails.getId()));
+    }
+
+    // 批量切换公开状态
+    @PostMapping("/batch/visibility")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> updateDocumentsVisibility(@Valid @RequestBody BatchVisibilityRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        return ResponseEntity.ok(documentBatchService.updateVisibility(
+                request.getIds(), request.getIsPublic(), userDetails.getId()));
+    }
 }
\ No newline at end of file
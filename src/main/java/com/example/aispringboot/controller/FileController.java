@@ -1,43 +1,59 @@
 package com.example.aispringboot.controller;
 
-import com.example.aispringboot.model.Document;
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.User;
 import com.example.aispringboot.model.File;
-import com.example.aispringboot.model.User;
+import com.example.aispringboot.payload.request.BatchIdsRequest;
+import com.example.aispringboot.payload.response.FileListItem;
+import com.example.aispringboot.payload.response.BatchItemResult;
 import com.example.aispringboot.repository.DocumentRepository;
 import com.example.aispringboot.repository.FileRepository;
 import com.example.aispringboot.repository.UserRepository;
+import com.example.aispringboot.service.FileDownloadService;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.FileStorageService;
+import com.example.aispringboot.service.FileTrashService;
+import com.example.aispringboot.service.QuotaService;
+import com.example.aispringboot.service.ThumbnailService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/files")
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = "X-Next-Cursor")
 public class FileController {
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // 不分页的旧接口最多返回这么多条，超出时在 X-Next-Cursor 头里给出续查 /page 的游标
+    private static final int MAX_LIST_SIZE = 1000;
+
+    private static final Pattern FILE_TYPE_FILTER = Pattern.compile("[\\w.+-]+(/[\\w.+-]+)?");
 
     @Autowired
     private FileRepository fileRepository;
@@ -48,6 +64,21 @@ public class FileController {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private FileTrashService fileTrashService;
+
     // 上传文件
     @PostMapping("/upload")
     @PreAuthorize("hasRole('USER')")
@@ -59,56 +90,28 @@ public class FileController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Please select a file to upload"));
             }
 
-            // 创建上传目录
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            // 生成唯一文件名
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-            String fileName = UUID.randomUUID().toString() + fileExtension;
-            
-            // 保存文件
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
             // 获取当前用户
             String username = authentication.getName();
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // 创建文件记录
-            File fileEntity = new File(
-                fileName,
-                originalFilename,
-                file.getContentType(),
-                file.getSize(),
-                filePath.toString(),
-                "/api/files/download/" + fileName,
-                user,
-                null
-            );
-
-            // 如果指定了文档ID，关联到文档
+            // 如果指定了文档ID，先检查权限再写盘
+            Document document = null;
             if (documentId != null) {
-                Document document = documentRepository.findById(documentId)
+                document = documentRepository.findById(documentId)
                         .orElseThrow(() -> new RuntimeException("Document not found"));
                 
-                // 检查权限
-                if (!hasDocumentAccess(document, user)) {
-                    Files.delete(filePath); // 删除已上传的文件
+                if (!fileStorageService.hasDocumentAccess(document, user)) {
                     return ResponseEntity.badRequest().body(Map.of("error", "Access denied to document"));
                 }
-                
-                fileEntity.setDocument(document);
             }
 
-            File savedFile = fileRepository.save(fileEntity);
+            // 预留到建档完成，并发上传不会一起越过配额
+            File savedFile;
+            try (QuotaService.Reservation ignored = quotaService.reserve(user.getId(), documentId, file.getSize())) {
+                savedFile = fileStorageService.store(file.getInputStream(), file.getOriginalFilename(),
+                        file.getContentType(), user, document);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", savedFile.getId());
@@ -121,40 +124,63 @@ public class FileController {
 
             return ResponseEntity.ok(response);
 
+        } catch (QuotaService.QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             return ResponseEntity.internalServerError().body(Map.of("error", "Failed to upload file: " + e.getMessage()));
         }
     }
 
-    // 下载文件
+    // 当前用户的配额用量
+    @GetMapping("/quota")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getQuota(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(quotaService.userUsage(userDetails.getId()));
+    }
+
+    // 下载文件，支持 Range/If-Range 断点续传和视频拖动
     @GetMapping("/download/{fileName}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName) {
-        try {
-            Path filePath = Paths.get(uploadDir).resolve(fileName);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                // 获取文件记录
-                File fileEntity = fileRepository.findAll().stream()
-                        .filter(f -> f.getFileName().equals(fileName))
-                        .findFirst()
-                        .orElse(null);
-
-                String contentType = "application/octet-stream";
-                if (fileEntity != null && fileEntity.getFileType() != null) {
-                    contentType = fileEntity.getFileType();
-                }
+    public void downloadFile(@PathVariable String fileName, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        if (!fileDownloadService.serve(fileName, request, response)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    // 图片缩略图，size 取不小于它的最小预设尺寸
+    @GetMapping("/{fileId}/thumbnail")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getThumbnail(@PathVariable Long fileId,
+                                          @RequestParam(defaultValue = "256") int size,
+                                          Authentication authentication) {
+        File file = fileRepository.findByIdAndIsDeletedFalse(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found"));
 
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + 
-                                (fileEntity != null ? fileEntity.getOriginalName() : fileName) + "\"")
-                        .body(resource);
-            } else {
+        User user = userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // 检查权限 - 文件所有者或有权访问所属文档
+        if (!file.getUser().getId().equals(user.getId())) {
+            if (file.getDocument() == null || !fileStorageService.hasDocumentAccess(file.getDocument(), user)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Access denied"));
+            }
+        }
+
+        try {
+            Optional<Path> thumbnail = thumbnailService.thumbnail(file, size);
+            if (!thumbnail.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
+            // 同一文件的缩略图内容不会变，可以长期缓存
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS).cachePrivate())
+                    .contentType(MediaType.parseMediaType(thumbnailService.contentTypeOf(file)))
+                    .body(new FileSystemResource(thumbnail.get()));
+        } catch (ThumbnailService.ThumbnailBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -162,104 +188,153 @@ public class FileController {
     @GetMapping("/my")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> getMyFiles(Authentication authentication) {
-        String username = authentication.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        List<FileListItem> files = fileRepository.findUserListing(userDetails.getId(), Long.MAX_VALUE,
+                null, null, null, PageRequest.of(0, MAX_LIST_SIZE + 1));
+        return listOf(files);
+    }
 
-        List<File> files = fileRepository.findByUserOrderByCreatedAtDesc(user);
-        
-        List<Map<String, Object>> fileData = files.stream().map(file -> {
-            Map<String, Object> data = new HashMap<>();
-            data.put("id", file.getId());
-            data.put("fileName", file.getFileName());
-            data.put("originalName", file.getOriginalName());
-            data.put("fileType", file.getFileType());
-            data.put("fileSize", file.getFileSize());
-            data.put("fileUrl", file.getFileUrl());
-            data.put("documentId", file.getDocument() != null ? file.getDocument().getId() : null);
-            data.put("createdAt", file.getCreatedAt());
-            return data;
-        }).collect(Collectors.toList());
-
-        return ResponseEntity.ok(fileData);
+    // 分页获取用户文件列表，before 传上一页返回的 nextCursor；type 可以是 image 或 image/png
+    @GetMapping("/my/page")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getMyFilesPage(@RequestParam(required = false) Long before,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(required = false) String type,
+                                            @RequestParam(required = false)
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                            @RequestParam(required = false)
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                            Authentication authentication) {
+        if (!isValidTypeFilter(type)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid file type filter"));
+        }
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        int pageSize = pageSizeOf(limit);
+        List<FileListItem> files = fileRepository.findUserListing(userDetails.getId(), cursorOf(before),
+                typePatternOf(type), from, to, PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok(pageOf(files, pageSize));
     }
 
     // 获取文档关联的文件
     @GetMapping("/document/{documentId}")
     @PreAuthorize("hasRole('USER')")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getDocumentFiles(@PathVariable Long documentId, Authentication authentication) {
-        Document document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new RuntimeException("Document not found"));
+        if (!canViewDocumentFiles(documentId, authentication)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Access denied"));
+        }
 
-        User user = userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        List<FileListItem> files = fileRepository.findDocumentListing(documentId, Long.MAX_VALUE,
+                null, null, null, PageRequest.of(0, MAX_LIST_SIZE + 1));
+        return listOf(files);
+    }
 
-        // 检查权限
-        if (!hasDocumentAccess(document, user)) {
+    // 分页获取文档关联的文件，参数同 /my/page
+    @GetMapping("/document/{documentId}/page")
+    @PreAuthorize("hasRole('USER')")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getDocumentFilesPage(@PathVariable Long documentId,
+                                                  @RequestParam(required = false) Long before,
+                                                  @RequestParam(defaultValue = "50") int limit,
+                                                  @RequestParam(required = false) String type,
+                                                  @RequestParam(required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam(required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                  Authentication authentication) {
+        if (!isValidTypeFilter(type)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid file type filter"));
+        }
+        if (!canViewDocumentFiles(documentId, authentication)) {
             return ResponseEntity.badRequest().body(Map.of("error", "Access denied"));
         }
 
-        List<File> files = fileRepository.findByDocumentOrderByCreatedAtDesc(document);
-        
-        List<Map<String, Object>> fileData = files.stream().map(file -> {
-            Map<String, Object> data = new HashMap<>();
-            data.put("id", file.getId());
-            data.put("fileName", file.getFileName());
-            data.put("originalName", file.getOriginalName());
-            data.put("fileType", file.getFileType());
-            data.put("fileSize", file.getFileSize());
-            data.put("fileUrl", file.getFileUrl());
-            data.put("createdAt", file.getCreatedAt());
-            return data;
-        }).collect(Collectors.toList());
-
-        return ResponseEntity.ok(fileData);
+        int pageSize = pageSizeOf(limit);
+        List<FileListItem> files = fileRepository.findDocumentListing(documentId, cursorOf(before),
+                typePatternOf(type), from, to, PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok(pageOf(files, pageSize));
     }
 
-    // 删除文件
+    // 删除文件：只做标记立即返回，内容由后台任务在保留期后回收
     @DeleteMapping("/{fileId}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> deleteFile(@PathVariable Long fileId, Authentication authentication) {
-        try {
-            File file = fileRepository.findById(fileId)
-                    .orElseThrow(() -> new RuntimeException("File not found"));
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        BatchItemResult result = fileTrashService.softDelete(Collections.singletonList(fileId), userDetails.getId()).get(0);
 
-            User user = userRepository.findByUsername(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+        if (BatchItemResult.NOT_FOUND.equals(result.getStatus())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
+        }
+        // 检查权限 - 只有文件所有者或文档所有者可以删除
+        if (BatchItemResult.FORBIDDEN.equals(result.getStatus())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Access denied"));
+        }
+        return ResponseEntity.ok(Map.of("message", "File deleted successfully"));
+    }
 
-            // 检查权限 - 只有文件所有者或文档所有者可以删除
-            if (!file.getUser().getId().equals(user.getId())) {
-                if (file.getDocument() == null || !file.getDocument().getUser().getId().equals(user.getId())) {
-                    return ResponseEntity.badRequest().body(Map.of("error", "Access denied"));
-                }
-            }
+    // 批量删除文件，逐个返回结果
+    @PostMapping("/batch/delete")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<BatchItemResult>> deleteFiles(@Valid @RequestBody BatchIdsRequest request,
+                                                             Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(fileTrashService.softDelete(request.getIds(), userDetails.getId()));
+    }
 
-            // 删除物理文件
-            Path filePath = Paths.get(file.getFilePath());
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-            }
+    private void fillThumbnailUrl(FileListItem item) {
+        if (thumbnailService.supports(item.getFileType())) {
+            item.setThumbnailUrl("/api/files/" + item.getId() + "/thumbnail");
+        }
+    }
 
-            // 删除数据库记录
-            fileRepository.delete(file);
+    private boolean canViewDocumentFiles(Long documentId, Authentication authentication) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+        User user = userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return fileStorageService.hasDocumentAccess(document, user);
+    }
 
-            return ResponseEntity.ok(Map.of("message", "File deleted successfully"));
+    private boolean isValidTypeFilter(String type) {
+        return type == null || type.isEmpty() || FILE_TYPE_FILTER.matcher(type).matches();
+    }
 
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().body(Map.of("error", "Failed to delete file: " + e.getMessage()));
+    // image 匹配 image/*，完整的 MIME 类型精确匹配
+    private String typePatternOf(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
         }
+        return type.contains("/") ? type.toLowerCase() : type.toLowerCase() + "/%";
     }
 
-    // 辅助方法：检查文档访问权限
-    private boolean hasDocumentAccess(Document document, User user) {
-        // 文档所有者
-        if (document.getUser().getId().equals(user.getId())) {
-            return true;
+    private Long cursorOf(Long before) {
+        return before != null ? before : Long.MAX_VALUE;
+    }
+
+    private int pageSizeOf(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // 旧接口保持返回数组；同样多查一条判断是否被截断
+    private ResponseEntity<List<FileListItem>> listOf(List<FileListItem> files) {
+        boolean truncated = files.size() > MAX_LIST_SIZE;
+        List<FileListItem> items = truncated ? files.subList(0, MAX_LIST_SIZE) : files;
+        items.forEach(this::fillThumbnailUrl);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (truncated) {
+            response.header("X-Next-Cursor", String.valueOf(items.get(items.size() - 1).getId()));
         }
+        return response.body(items);
+    }
 
-        // 协作者
-        return document.getCollaborators().stream()
-                .anyMatch(collaborator -> collaborator.getUser().getId().equals(user.getId()) && 
-                                         collaborator.getIsActive());
+    // 多查一条判断是否还有下一页
+    private Map<String, Object> pageOf(List<FileListItem> files, int pageSize) {
+        boolean hasMore = files.size() > pageSize;
+        List<FileListItem> items = hasMore ? files.subList(0, pageSize) : files;
+        items.forEach(this::fillThumbnailUrl);
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", hasMore ? items.get(items.size() - 1).getId() : null);
+        return page;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.entity.ImportJob;
+import com.example.aispringboot.repository.ImportJobRepository;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.DocumentImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ImportController {
+
+    @Autowired
+    private DocumentImportService documentImportService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    // 上传 Markdown/HTML 压缩包并开始导入
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> createImport(@RequestParam("file") MultipartFile file, Authentication authentication) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Please select a ZIP archive to import"));
+        }
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        try {
+            ImportJob job = documentImportService.submit(userDetails.getId(), file);
+            return ResponseEntity.accepted().body(job);
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Failed to save archive: " + e.getMessage()));
+        }
+    }
+
+    // 查询导入进度
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getImport(@PathVariable Long id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Optional<ImportJob> job = importJobRepository.findByIdAndUserId(id, userDetails.getId());
+
+        if (job.isPresent()) {
+            return ResponseEntity.ok(job.get());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    // 获取当前用户的导入任务
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<ImportJob>> getMyImports(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return ResponseEntity.ok(importJobRepository.findByUserIdOrderByCreatedAtDesc(userDetails.getId()));
+    }
+
+    // 从检查点继续失败的导入任务
+    @PostMapping("/{id}/resume")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> resumeImport(@PathVariable Long id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Optional<ImportJob> jobOpt = importJobRepository.findByIdAndUserId(id, userDetails.getId());
+
+        if (!jobOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ImportJob.FAILED.equals(jobOpt.get().getStatus())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Only failed imports can be resumed"));
+        }
+        // 并发的恢复请求只有一个能认领成功
+        if (!documentImportService.start(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Import is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Import resumed"));
+    }
+}
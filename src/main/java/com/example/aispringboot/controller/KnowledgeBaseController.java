@@ -0,0 +1,145 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.entity.KnowledgeBase;
+import com.example.aispringboot.payload.request.KnowledgeBaseNodeRequest;
+import com.example.aispringboot.repository.KnowledgeBaseRepository;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.KnowledgeBaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/knowledge-bases")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class KnowledgeBaseController {
+
+    @Autowired
+    private KnowledgeBaseService knowledgeBaseService;
+
+    @Autowired
+    private KnowledgeBaseRepository knowledgeBaseRepository;
+
+    // 获取我的知识库
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<KnowledgeBase>> getMyKnowledgeBases(Authentication authentication) {
+        return ResponseEntity.ok(knowledgeBaseRepository.findByUserIdOrderByUpdatedAtDesc(currentUserId(authentication)));
+    }
+
+    // 创建知识库
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> createKnowledgeBase(@RequestBody KnowledgeBase request, Authentication authentication) {
+        if (request.getName() == null || request.getName().trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Name is required"));
+        }
+
+        KnowledgeBase knowledgeBase = new KnowledgeBase(request.getName(), request.getDescription(), currentUserId(authentication));
+        knowledgeBase.setIsPublic(request.getIsPublic() != null ? request.getIsPublic() : false);
+        return ResponseEntity.ok(knowledgeBaseRepository.save(knowledgeBase));
+    }
+
+    // 获取完整目录树
+    @GetMapping("/{id}/toc")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getTableOfContents(@PathVariable Long id, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(knowledgeBaseService.getTableOfContents(id, currentUserId(authentication)));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 新建目录节点（分组或文档）
+    @PostMapping("/{id}/nodes")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> createNode(@PathVariable Long id, @Valid @RequestBody KnowledgeBaseNodeRequest request,
+                                        Authentication authentication) {
+        try {
+            return ResponseEntity.ok(knowledgeBaseService.createNode(id, request, currentUserId(authentication)));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 重命名节点
+    @PutMapping("/nodes/{nodeId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> renameNode(@PathVariable Long nodeId, @Valid @RequestBody KnowledgeBaseNodeRequest request,
+                                        Authentication authentication) {
+        if (request.getTitle() == null || request.getTitle().trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Title is required"));
+        }
+        try {
+            return ResponseEntity.ok(knowledgeBaseService.renameNode(nodeId, request.getTitle(), currentUserId(authentication)));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 移动节点或调整同级顺序
+    @PutMapping("/nodes/{nodeId}/move")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> moveNode(@PathVariable Long nodeId, @RequestBody KnowledgeBaseNodeRequest request,
+                                      Authentication authentication) {
+        try {
+            return ResponseEntity.ok(knowledgeBaseService.moveNode(nodeId, request, currentUserId(authentication)));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 获取子树
+    @GetMapping("/nodes/{nodeId}/subtree")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getSubtree(@PathVariable Long nodeId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(knowledgeBaseService.getSubtree(nodeId, currentUserId(authentication)));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 统计后代节点数量
+    @GetMapping("/nodes/{nodeId}/descendants/count")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> countDescendants(@PathVariable Long nodeId, Authentication authentication) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("nodeId", nodeId);
+            response.put("count", knowledgeBaseService.countDescendants(nodeId, currentUserId(authentication)));
+            return ResponseEntity.ok(response);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 删除节点及其子树
+    @DeleteMapping("/nodes/{nodeId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> deleteNode(@PathVariable Long nodeId, Authentication authentication) {
+        try {
+            int deleted = knowledgeBaseService.deleteNode(nodeId, currentUserId(authentication));
+            return ResponseEntity.ok(Map.of("message", "Deleted " + deleted + " nodes"));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 辅助方法：获取当前用户ID
+    private Long currentUserId(Authentication authentication) {
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+    }
+}
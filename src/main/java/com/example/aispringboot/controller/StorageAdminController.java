@@ -0,0 +1,65 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.service.StorageMigrationService;
+import com.example.aispringboot.service.StorageScrubService;
+import com.example.aispringboot.service.ThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// 存储维护：分片目录迁移、存储巡检和缩略图队列状态
+@RestController
+@RequestMapping("/api/admin/storage")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class StorageAdminController {
+
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StorageScrubService storageScrubService;
+
+    @PostMapping("/migrate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startMigration() {
+        if (!storageMigrationService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(storageMigrationService.status());
+        }
+        return ResponseEntity.accepted().body(storageMigrationService.status());
+    }
+
+    @GetMapping("/migration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getMigrationStatus() {
+        return ResponseEntity.ok(storageMigrationService.status());
+    }
+
+    @GetMapping("/thumbnails")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getThumbnailStats() {
+        return ResponseEntity.ok(thumbnailService.stats());
+    }
+
+    // 巡检上传目录与数据库的一致性，removeOrphans 为 true 时删除孤儿文件
+    @PostMapping("/scrub")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startScrub(@RequestParam(defaultValue = "false") boolean removeOrphans) {
+        if (!storageScrubService.start(removeOrphans)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(storageScrubService.report());
+        }
+        return ResponseEntity.accepted().body(storageScrubService.report());
+    }
+
+    @GetMapping("/scrub")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getScrubReport() {
+        return ResponseEntity.ok(storageScrubService.report());
+    }
+}
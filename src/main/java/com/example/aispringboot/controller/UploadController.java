@@ -0,0 +1,187 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.UploadSession;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.payload.request.UploadSessionRequest;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.example.aispringboot.repository.UploadSessionRepository;
+import com.example.aispringboot.repository.UserRepository;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.FileStorageService;
+import com.example.aispringboot.service.QuotaService;
+import com.example.aispringboot.service.ResumableUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// 可续传分片上传：POST 创建，PATCH 按偏移量追加分片，HEAD 查询进度
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = {"Location", "Upload-Offset", "Upload-Length"})
+public class UploadController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_CHECKSUM = "Upload-Checksum";
+
+    // tus 约定的校验失败状态码
+    private static final int CHECKSUM_MISMATCH = 460;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    // 创建上传会话
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> createUpload(@Valid @RequestBody UploadSessionRequest request,
+                                          Authentication authentication) {
+        User user = userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // 如果指定了文档ID，先检查权限
+        if (request.getDocumentId() != null) {
+            Document document = documentRepository.findById(request.getDocumentId())
+                    .orElseThrow(() -> new RuntimeException("Document not found"));
+            if (!fileStorageService.hasDocumentAccess(document, user)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Access denied to document"));
+            }
+        }
+
+        try {
+            UploadSession session = resumableUploadService.create(user.getId(), request);
+            return ResponseEntity.created(URI.create("/api/uploads/" + session.getId()))
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                    .header(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()))
+                    .body(toResponse(session));
+        } catch (QuotaService.QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Failed to create upload: " + e.getMessage()));
+        }
+    }
+
+    // 查询已确认的偏移量，客户端据此续传
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> getUploadOffset(@PathVariable String id, Authentication authentication) {
+        Optional<UploadSession> session = findSession(id, authentication);
+        if (!session.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(session.get().getUploadOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.get().getUploadLength()))
+                .build();
+    }
+
+    // 查询上传状态，完成后包含 fileId
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getUpload(@PathVariable String id, Authentication authentication) {
+        Optional<UploadSession> session = findSession(id, authentication);
+        if (!session.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toResponse(session.get()));
+    }
+
+    // 追加分片，请求体为原始字节（application/offset+octet-stream）
+    @PatchMapping("/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> appendChunk(@PathVariable String id,
+                                         @RequestHeader(UPLOAD_OFFSET) long offset,
+                                         @RequestHeader(value = UPLOAD_CHECKSUM, required = false) String checksum,
+                                         HttpServletRequest request, Authentication authentication) {
+        Optional<UploadSession> sessionOpt = findSession(id, authentication);
+        if (!sessionOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            UploadSession session = resumableUploadService.appendChunk(sessionOpt.get(), offset,
+                    request.getInputStream(), checksum);
+            if (UploadSession.COMPLETED.equals(session.getStatus())) {
+                return ResponseEntity.ok()
+                        .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                        .body(toResponse(session));
+            }
+            return ResponseEntity.noContent()
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                    .build();
+        } catch (ResumableUploadService.ChecksumMismatchException e) {
+            return ResponseEntity.status(CHECKSUM_MISMATCH).body(Map.of("error", e.getMessage()));
+        } catch (QuotaService.QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Failed to write chunk: " + e.getMessage()));
+        }
+    }
+
+    // 放弃上传并删除临时文件
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> cancelUpload(@PathVariable String id, Authentication authentication) {
+        Optional<UploadSession> session = findSession(id, authentication);
+        if (!session.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (UploadSession.COMPLETED.equals(session.get().getStatus())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Upload is already completed"));
+        }
+
+        try {
+            resumableUploadService.cancel(session.get());
+            return ResponseEntity.noContent().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Failed to cancel upload: " + e.getMessage()));
+        }
+    }
+
+    private Optional<UploadSession> findSession(String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return uploadSessionRepository.findByIdAndUserId(id, userDetails.getId());
+    }
+
+    private Map<String, Object> toResponse(UploadSession session) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", session.getId());
+        response.put("fileName", session.getOriginalName());
+        response.put("uploadLength", session.getUploadLength());
+        response.put("uploadOffset", session.getUploadOffset());
+        response.put("status", session.getStatus());
+        response.put("fileId", session.getFileId());
+        return response;
+    }
+}
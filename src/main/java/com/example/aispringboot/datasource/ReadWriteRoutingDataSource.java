@@ -0,0 +1,89 @@
+package com.example.aispringboot.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由：只读事务轮询分配到健康的从库，其余全部走主库；没有可用从库时回退主库。
+ * 必须包在 LazyConnectionDataSourceProxy 里使用，保证取连接时事务的只读标记已经生效。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final Set<String> unhealthyReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(Object primary, Map<String, Object> replicas) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicaKeys = Collections.unmodifiableList(new ArrayList<>(replicas.keySet()));
+        // 第一次健康检查通过之前不往从库路由
+        this.unhealthyReplicas.addAll(replicaKeys);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+
+        int size = replicaKeys.size();
+        int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get((start + i) % size);
+            if (!unhealthyReplicas.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    public DataSource getReplica(String key) {
+        return getResolvedDataSources().get(key);
+    }
+
+    // 关闭从库连接池，主库连接池由容器管理
+    public void close() {
+        for (String key : replicaKeys) {
+            DataSource replica = getReplica(key);
+            if (replica instanceof Closeable) {
+                try {
+                    ((Closeable) replica).close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close replica " + key, e);
+                }
+            }
+        }
+    }
+
+    public List<String> getReplicaKeys() {
+        return replicaKeys;
+    }
+
+    public void markHealthy(String key, boolean healthy) {
+        if (healthy) {
+            unhealthyReplicas.remove(key);
+        } else {
+            unhealthyReplicas.add(key);
+        }
+    }
+
+    public boolean isHealthy(String key) {
+        return !unhealthyReplicas.contains(key);
+    }
+}
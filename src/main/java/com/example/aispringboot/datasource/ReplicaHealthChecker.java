@@ -0,0 +1,71 @@
+package com.example.aispringboot.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 定时探测从库：连不上、复制中断或延迟超过阈值的从库被摘除，恢复后自动加回。
+ * 从库启动时处于摘除状态，首次探测通过后才承接读请求。
+ * 先执行探测查询确认业务表可读，MySQL 再读取 SHOW SLAVE STATUS 的 Seconds_Behind_Master。
+ */
+public class ReplicaHealthChecker {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthChecker.class);
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final long maxLagSeconds;
+    private final String probeQuery;
+
+    public ReplicaHealthChecker(ReadWriteRoutingDataSource routingDataSource, long maxLagSeconds, String probeQuery) {
+        this.routingDataSource = routingDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+        this.probeQuery = probeQuery;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica-check-interval-ms:5000}")
+    public void check() {
+        for (String key : routingDataSource.getReplicaKeys()) {
+            boolean healthy = isHealthy(key, routingDataSource.getReplica(key));
+            if (healthy != routingDataSource.isHealthy(key)) {
+                logger.warn("Replica {} is now {}", key, healthy ? "healthy" : "unavailable, routing reads to primary");
+            }
+            routingDataSource.markHealthy(key, healthy);
+        }
+    }
+
+    private boolean isHealthy(String key, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            // 连得上但没有表结构的库（连错库、没初始化）同样不能承接读请求
+            try (Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                statement.executeQuery(probeQuery).close();
+            }
+            if (!connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")) {
+                return true;
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SHOW SLAVE STATUS")) {
+                if (!resultSet.next()) {
+                    // 不是从库（例如本地测试时主从指向同一个库），视为无延迟
+                    return true;
+                }
+                long lag = resultSet.getLong("Seconds_Behind_Master");
+                if (resultSet.wasNull()) {
+                    logger.warn("Replica {} replication is stopped", key);
+                    return false;
+                }
+                return lag <= maxLagSeconds;
+            }
+        } catch (SQLException e) {
+            logger.warn("Replica {} health check failed: {}", key, e.getMessage());
+            return false;
+        }
+    }
+}
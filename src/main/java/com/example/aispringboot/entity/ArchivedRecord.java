@@ -0,0 +1,54 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 回收站清理时归档的行，原始列以 JSON 保存，不依赖源表结构。
+ */
+@Entity
+@Table(name = "archived_records", indexes = {
+        @Index(name = "idx_archived_records_document", columnList = "document_id"),
+        @Index(name = "idx_archived_records_source", columnList = "source_table, record_id")
+})
+public class ArchivedRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "source_table", nullable = false, length = 64)
+    private String sourceTable;
+
+    @Column(name = "record_id")
+    private Long recordId;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Lob
+    private String payload;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public ArchivedRecord() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSourceTable() { return sourceTable; }
+    public void setSourceTable(String sourceTable) { this.sourceTable = sourceTable; }
+
+    public Long getRecordId() { return recordId; }
+    public void setRecordId(Long recordId) { this.recordId = recordId; }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+}
@@ -1,10 +1,19 @@
 package com.example.aispringboot.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_user_deleted", columnList = "user_id, is_deleted, updated_at"),
+        @Index(name = "idx_documents_trash", columnList = "is_deleted, deleted_at")
+})
+@Cacheable
+// 二级缓存只保存元数据，正文是延迟属性，不进缓存
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "documents", include = "non-lazy")
 public class Document {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,6 +22,8 @@ public class Document {
     @Column(nullable = false)
     private String title;
 
+    // 需要构建时字节码增强才能延迟加载；列表查询用 FETCH ALL PROPERTIES 一次取出
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
     private String content;
 
@@ -32,6 +43,9 @@ public class Document {
     @Column(name = "is_deleted")
     private Boolean isDeleted = false;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @Column(name = "view_count")
     private Integer viewCount = 0;
 
@@ -82,6 +96,9 @@ public class Document {
     public Boolean getIsDeleted() { return isDeleted; }
     public void setIsDeleted(Boolean isDeleted) { this.isDeleted = isDeleted; }
 
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+
     public Integer getViewCount() { return viewCount; }
     public void setViewCount(Integer viewCount) { this.viewCount = viewCount; }
 
@@ -0,0 +1,40 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 文档点赞用户集合，序列化的 Roaring Bitmap，按文档一行。
+ */
+@Entity
+@Table(name = "document_like_sets")
+public class DocumentLikeSet {
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] bitmap;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public DocumentLikeSet() {}
+
+    public DocumentLikeSet(Long documentId, byte[] bitmap) {
+        this.documentId = documentId;
+        this.bitmap = bitmap;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public byte[] getBitmap() { return bitmap; }
+    public void setBitmap(byte[] bitmap) { this.bitmap = bitmap; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
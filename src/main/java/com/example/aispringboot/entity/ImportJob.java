@@ -0,0 +1,115 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "import_jobs", indexes = {
+        @Index(name = "idx_import_jobs_user", columnList = "user_id")
+})
+public class ImportJob {
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "archive_name")
+    private String archiveName;
+
+    @Column(name = "archive_path", nullable = false)
+    private String archivePath;
+
+    @Column(length = 20, nullable = false)
+    private String status = PENDING;
+
+    @Column(name = "total_entries")
+    private Integer totalEntries = 0;
+
+    // 已提交的条目数，恢复时从这里继续
+    @Column(name = "processed_entries")
+    private Integer processedEntries = 0;
+
+    @Column(name = "imported_documents")
+    private Integer importedDocuments = 0;
+
+    @Column(name = "imported_files")
+    private Integer importedFiles = 0;
+
+    @Column(name = "failed_entries")
+    private Integer failedEntries = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public ImportJob() {}
+
+    public ImportJob(Long userId, String archiveName, String archivePath) {
+        this.userId = userId;
+        this.archiveName = archiveName;
+        this.archivePath = archivePath;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getArchiveName() { return archiveName; }
+    public void setArchiveName(String archiveName) { this.archiveName = archiveName; }
+
+    public String getArchivePath() { return archivePath; }
+    public void setArchivePath(String archivePath) { this.archivePath = archivePath; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getTotalEntries() { return totalEntries; }
+    public void setTotalEntries(Integer totalEntries) { this.totalEntries = totalEntries; }
+
+    public Integer getProcessedEntries() { return processedEntries; }
+    public void setProcessedEntries(Integer processedEntries) { this.processedEntries = processedEntries; }
+
+    public Integer getImportedDocuments() { return importedDocuments; }
+    public void setImportedDocuments(Integer importedDocuments) { this.importedDocuments = importedDocuments; }
+
+    public Integer getImportedFiles() { return importedFiles; }
+    public void setImportedFiles(Integer importedFiles) { this.importedFiles = importedFiles; }
+
+    public Integer getFailedEntries() { return failedEntries; }
+    public void setFailedEntries(Integer failedEntries) { this.failedEntries = failedEntries; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
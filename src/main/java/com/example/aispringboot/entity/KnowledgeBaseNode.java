@@ -0,0 +1,78 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 知识库目录节点：documentId 为空时是分组，否则指向一篇文档。
+ * 同级顺序由 sortKey 的字典序决定，调整顺序只需要改一行。
+ */
+@Entity
+@Table(name = "kb_nodes", indexes = {
+        @Index(name = "idx_kb_nodes_toc", columnList = "knowledge_base_id, parent_id, sort_key"),
+        @Index(name = "idx_kb_nodes_document", columnList = "document_id")
+})
+public class KnowledgeBaseNode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "knowledge_base_id", nullable = false)
+    private Long knowledgeBaseId;
+
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(name = "sort_key", nullable = false, length = 128)
+    private String sortKey;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public KnowledgeBaseNode() {}
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getKnowledgeBaseId() { return knowledgeBaseId; }
+    public void setKnowledgeBaseId(Long knowledgeBaseId) { this.knowledgeBaseId = knowledgeBaseId; }
+
+    public Long getParentId() { return parentId; }
+    public void setParentId(Long parentId) { this.parentId = parentId; }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getSortKey() { return sortKey; }
+    public void setSortKey(String sortKey) { this.sortKey = sortKey; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
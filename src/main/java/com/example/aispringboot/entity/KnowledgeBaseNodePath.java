@@ -0,0 +1,73 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * 闭包表：每个节点与自身及所有祖先各有一行，depth 为相隔层数（自身为 0）。
+ */
+@Entity
+@Table(name = "kb_node_paths", indexes = {
+        @Index(name = "idx_kb_node_paths_descendant", columnList = "descendant_id, depth")
+})
+@IdClass(KnowledgeBaseNodePath.PathId.class)
+public class KnowledgeBaseNodePath {
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    public KnowledgeBaseNodePath() {}
+
+    public KnowledgeBaseNodePath(Long ancestorId, Long descendantId, Integer depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    // Getters and Setters
+    public Long getAncestorId() { return ancestorId; }
+    public void setAncestorId(Long ancestorId) { this.ancestorId = ancestorId; }
+
+    public Long getDescendantId() { return descendantId; }
+    public void setDescendantId(Long descendantId) { this.descendantId = descendantId; }
+
+    public Integer getDepth() { return depth; }
+    public void setDepth(Integer depth) { this.depth = depth; }
+
+    public static class PathId implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long ancestorId;
+        private Long descendantId;
+
+        public PathId() {}
+
+        public PathId(Long ancestorId, Long descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            PathId pathId = (PathId) o;
+            return Objects.equals(ancestorId, pathId.ancestorId) && Objects.equals(descendantId, pathId.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestorId, descendantId);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+
+/**
+ * 集群共享的限流桶：tat 为下一个令牌的理论到达时间（微秒），由 JdbcBucketStore 用条件更新原子推进。
+ */
+@Entity
+@Table(name = "rate_limit_buckets")
+public class RateLimitBucket {
+    @Id
+    @Column(name = "bucket_key", length = 191)
+    private String bucketKey;
+
+    @Column(nullable = false)
+    private Long tat;
+
+    public RateLimitBucket() {}
+
+    // Getters and Setters
+    public String getBucketKey() { return bucketKey; }
+    public void setBucketKey(String bucketKey) { this.bucketKey = bucketKey; }
+
+    public Long getTat() { return tat; }
+    public void setTat(Long tat) { this.tat = tat; }
+}
@@ -0,0 +1,40 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 附件用量计数：每个用户、每个文档一行，id 形如 user:12、document:34。
+ * 上传和删除时原子增减，定时任务按 files 表校准。
+ */
+@Entity
+@Table(name = "storage_usage")
+public class StorageUsage {
+    @Id
+    @Column(length = 40)
+    private String id;
+
+    @Column(name = "bytes_used", nullable = false)
+    private Long bytesUsed = 0L;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public StorageUsage() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getBytesUsed() { return bytesUsed; }
+    public void setBytesUsed(Long bytesUsed) { this.bytesUsed = bytesUsed; }
+
+    public Long getFileCount() { return fileCount; }
+    public void setFileCount(Long fileCount) { this.fileCount = fileCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,47 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 热门榜单检查点：每个时间窗口一行，保存衰减分数（JSON）及其基准时间。
+ */
+@Entity
+@Table(name = "trending_checkpoints")
+public class TrendingCheckpoint {
+    @Id
+    @Column(name = "window_name", length = 20)
+    private String windowName;
+
+    @Column(name = "landmark_millis", nullable = false)
+    private Long landmarkMillis;
+
+    @Lob
+    @Column(nullable = false)
+    private String scores;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public TrendingCheckpoint() {}
+
+    public TrendingCheckpoint(String windowName, Long landmarkMillis, String scores) {
+        this.windowName = windowName;
+        this.landmarkMillis = landmarkMillis;
+        this.scores = scores;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getWindowName() { return windowName; }
+    public void setWindowName(String windowName) { this.windowName = windowName; }
+
+    public Long getLandmarkMillis() { return landmarkMillis; }
+    public void setLandmarkMillis(Long landmarkMillis) { this.landmarkMillis = landmarkMillis; }
+
+    public String getScores() { return scores; }
+    public void setScores(String scores) { this.scores = scores; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,111 @@
+package com.example.aispringboot.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 分片上传会话：记录已确认写入的偏移量，客户端断线后可从这里继续。
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_user", columnList = "user_id"),
+        @Index(name = "idx_upload_sessions_status_updated", columnList = "status, updated_at")
+})
+public class UploadSession {
+    public static final String ACTIVE = "ACTIVE";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(name = "original_name", nullable = false)
+    private String originalName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "upload_length", nullable = false)
+    private Long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private Long uploadOffset = 0L;
+
+    // 可选：整个文件的 SHA-256（十六进制），完成时校验
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "temp_path", nullable = false)
+    private String tempPath;
+
+    @Column(length = 20, nullable = false)
+    private String status = ACTIVE;
+
+    @Column(name = "file_id")
+    private Long fileId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public UploadSession() {}
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getDocumentId() { return documentId; }
+    public void setDocumentId(Long documentId) { this.documentId = documentId; }
+
+    public String getOriginalName() { return originalName; }
+    public void setOriginalName(String originalName) { this.originalName = originalName; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Long getUploadLength() { return uploadLength; }
+    public void setUploadLength(Long uploadLength) { this.uploadLength = uploadLength; }
+
+    public Long getUploadOffset() { return uploadOffset; }
+    public void setUploadOffset(Long uploadOffset) { this.uploadOffset = uploadOffset; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getTempPath() { return tempPath; }
+    public void setTempPath(String tempPath) { this.tempPath = tempPath; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getFileId() { return fileId; }
+    public void setFileId(Long fileId) { this.fileId = fileId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,10 +1,15 @@
 package com.example.aispringboot.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "document_collaborators")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "document-collaborators")
 public class DocumentCollaborator {
     
     @Id
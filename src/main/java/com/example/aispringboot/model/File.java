@@ -4,7 +4,13 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "files")
+@Table(name = "files", indexes = {
+        @Index(name = "idx_files_file_name", columnList = "fileName", unique = true),
+        @Index(name = "idx_files_blob_hash", columnList = "blob_hash"),
+        @Index(name = "idx_files_deleted", columnList = "is_deleted, deleted_at"),
+        @Index(name = "idx_files_user_listing", columnList = "user_id, is_deleted, id"),
+        @Index(name = "idx_files_document_listing", columnList = "document_id, is_deleted, id")
+})
 public class File {
     
     @Id
@@ -29,6 +35,17 @@ public class File {
     @Column(nullable = false)
     private String fileUrl;
     
+    // 内容寻址存储的 SHA-256，早期上传的文件为空
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+    
+    // 删除时只做标记，内容由后台任务在保留期过后回收；带默认值，已有记录加列后为未删除
+    @Column(name = "is_deleted", nullable = false, columnDefinition = "boolean default false")
+    private Boolean isDeleted = false;
+    
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -118,6 +135,30 @@ public class File {
         this.fileUrl = fileUrl;
     }
     
+    public String getBlobHash() {
+        return blobHash;
+    }
+    
+    public void setBlobHash(String blobHash) {
+        this.blobHash = blobHash;
+    }
+    
+    public Boolean getIsDeleted() {
+        return isDeleted;
+    }
+    
+    public void setIsDeleted(Boolean isDeleted) {
+        this.isDeleted = isDeleted;
+    }
+    
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+    
     public User getUser() {
         return user;
     }
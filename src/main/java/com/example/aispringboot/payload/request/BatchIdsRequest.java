@@ -0,0 +1,19 @@
+package com.example.aispringboot.payload.request;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BatchIdsRequest {
+    @NotEmpty
+    @Size(max = 500)
+    private List<Long> ids;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
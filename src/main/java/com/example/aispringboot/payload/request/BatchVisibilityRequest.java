@@ -0,0 +1,31 @@
+package com.example.aispringboot.payload.request;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BatchVisibilityRequest {
+    @NotEmpty
+    @Size(max = 500)
+    private List<Long> ids;
+
+    @NotNull
+    private Boolean isPublic;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Boolean getIsPublic() {
+        return isPublic;
+    }
+
+    public void setIsPublic(Boolean isPublic) {
+        this.isPublic = isPublic;
+    }
+}
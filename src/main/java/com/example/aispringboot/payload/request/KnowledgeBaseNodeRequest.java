@@ -0,0 +1,58 @@
+package com.example.aispringboot.payload.request;
+
+import javax.validation.constraints.Size;
+
+public class KnowledgeBaseNodeRequest {
+    @Size(max = 255)
+    private String title;
+
+    private Long parentId;
+
+    private Long documentId;
+
+    // 放在该同级节点之后
+    private Long afterId;
+
+    // 放在该同级节点之前
+    private Long beforeId;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfterId(Long afterId) {
+        this.afterId = afterId;
+    }
+
+    public Long getBeforeId() {
+        return beforeId;
+    }
+
+    public void setBeforeId(Long beforeId) {
+        this.beforeId = beforeId;
+    }
+}
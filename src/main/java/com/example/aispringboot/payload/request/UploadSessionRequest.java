@@ -0,0 +1,66 @@
+package com.example.aispringboot.payload.request;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+
+public class UploadSessionRequest {
+    @NotBlank
+    @Size(max = 255)
+    private String fileName;
+
+    @Size(max = 255)
+    private String contentType;
+
+    @NotNull
+    @Positive
+    private Long size;
+
+    private Long documentId;
+
+    // 整个文件的 SHA-256，可选
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$")
+    private String sha256;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.aispringboot.payload.response;
+
+public class BatchItemResult {
+    public static final String OK = "ok";
+    public static final String NOT_FOUND = "not_found";
+    public static final String FORBIDDEN = "forbidden";
+    public static final String INVALID = "invalid";
+
+    private Long id;
+    private Integer index;
+    private String status;
+
+    public BatchItemResult(Long id, Integer index, String status) {
+        this.id = id;
+        this.index = index;
+        this.status = status;
+    }
+
+    public static BatchItemResult ofId(Long id, String status) {
+        return new BatchItemResult(id, null, status);
+    }
+
+    public static BatchItemResult ofIndex(int index, Long id, String status) {
+        return new BatchItemResult(id, index, status);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
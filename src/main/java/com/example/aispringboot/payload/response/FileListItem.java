@@ -0,0 +1,100 @@
+package com.example.aispringboot.payload.response;
+
+import java.time.LocalDateTime;
+
+// 附件列表的一行，由投影查询直接构造，不加载 File 实体和关联的文档
+public class FileListItem {
+    private Long id;
+    private String fileName;
+    private String originalName;
+    private String fileType;
+    private Long fileSize;
+    private String fileUrl;
+    private String thumbnailUrl;
+    private Long documentId;
+    private LocalDateTime createdAt;
+
+    public FileListItem(Long id, String fileName, String originalName, String fileType, Long fileSize,
+                        String fileUrl, Long documentId, LocalDateTime createdAt) {
+        this.id = id;
+        this.fileName = fileName;
+        this.originalName = originalName;
+        this.fileType = fileType;
+        this.fileSize = fileSize;
+        this.fileUrl = fileUrl;
+        this.documentId = documentId;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getOriginalName() {
+        return originalName;
+    }
+
+    public void setOriginalName(String originalName) {
+        this.originalName = originalName;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getFileUrl() {
+        return fileUrl;
+    }
+
+    public void setFileUrl(String fileUrl) {
+        this.fileUrl = fileUrl;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
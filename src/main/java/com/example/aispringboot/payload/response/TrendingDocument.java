@@ -0,0 +1,80 @@
+package com.example.aispringboot.payload.response;
+
+import java.time.LocalDateTime;
+
+public class TrendingDocument {
+    private Long id;
+    private String title;
+    private Long userId;
+    private Integer viewCount;
+    private Integer likeCount;
+    private LocalDateTime updatedAt;
+    private double score;
+
+    public TrendingDocument(Long id, String title, Long userId, Integer viewCount, Integer likeCount,
+                            LocalDateTime updatedAt, double score) {
+        this.id = id;
+        this.title = title;
+        this.userId = userId;
+        this.viewCount = viewCount;
+        this.likeCount = likeCount;
+        this.updatedAt = updatedAt;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Integer getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Integer viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public Integer getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Integer likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.aispringboot.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群共享的令牌桶：与 TokenBucket 同样的 GCRA，理论到达时间存在 rate_limit_buckets 表里，
+ * 一条条件 UPDATE 完成判断和扣减，各实例的时钟需要大致同步。每次判断访问一次数据库，
+ * 只适合登录、上传这类频率不高的类别。
+ */
+@Component
+public class JdbcBucketStore {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcBucketStore.class);
+
+    private static final String ACQUIRE_SQL = "UPDATE rate_limit_buckets SET tat = GREATEST(tat, ?) + ? "
+            + "WHERE bucket_key = ? AND GREATEST(tat, ?) + ? - ? <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 取到令牌返回 0，否则返回还需等待的毫秒数；数据库不可用时放行
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        long interval = TimeUnit.NANOSECONDS.toMicros(TokenBucket.intervalNanos(limit));
+        long burst = interval * limit.getCapacity();
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        try {
+            if (update(key, now, interval, burst)) {
+                return 0;
+            }
+            List<Long> tat = jdbcTemplate.queryForList(
+                    "SELECT tat FROM rate_limit_buckets WHERE bucket_key = ?", Long.class, key);
+            if (tat.isEmpty()) {
+                try {
+                    jdbcTemplate.update("INSERT INTO rate_limit_buckets (bucket_key, tat) VALUES (?, ?)",
+                            key, now + interval);
+                    return 0;
+                } catch (DataIntegrityViolationException e) {
+                    // 其他实例刚创建了同一个桶
+                    return update(key, now, interval, burst) ? 0 : TimeUnit.MICROSECONDS.toMillis(interval) + 1;
+                }
+            }
+            long ahead = Math.max(tat.get(0), now) + interval - now;
+            return Math.max(1, TimeUnit.MICROSECONDS.toMillis(ahead - burst));
+        } catch (DataAccessException e) {
+            logger.warn("Shared rate limit unavailable, allowing request: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    // 一小时没有请求的桶早已补满，删除不影响判断
+    @Scheduled(fixedDelayString = "${app.rate-limit.cleanup-interval-ms:600000}")
+    public void removeIdleBuckets() {
+        long cutoff = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE tat < ?", cutoff);
+    }
+
+    private boolean update(String key, long now, long interval, long burst) {
+        return jdbcTemplate.update(ACQUIRE_SQL, now, interval, key, now, interval, now, burst) > 0;
+    }
+}
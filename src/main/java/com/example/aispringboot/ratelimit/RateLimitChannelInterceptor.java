@@ -0,0 +1,42 @@
+package com.example.aispringboot.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * STOMP 入站消息限流：只统计客户端发送的 SEND 帧，文档编辑单独一个类别。
+ * 超出额度时抛出异常，由 STOMP 协议处理器回给客户端 ERROR 帧。
+ */
+@Component
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+
+    private static final String EDIT_DESTINATION = "/app/document.edit";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND) {
+            return message;
+        }
+        String endpointClass = EDIT_DESTINATION.equals(accessor.getDestination()) ? "edit" : "stomp";
+        Principal user = accessor.getUser();
+        String caller = user != null ? "user:" + user.getName() : "session:" + accessor.getSessionId();
+        long waitMillis = rateLimiter.tryAcquire(endpointClass, caller);
+        if (waitMillis > 0) {
+            throw new MessageDeliveryException(message, "Rate limit exceeded, retry after " + waitMillis + " ms");
+        }
+        return message;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.aispringboot.ratelimit;
+
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * REST 接口限流，放在 AuthTokenFilter 之后：已登录的请求按用户计数，匿名请求和登录接口按 IP 计数。
+ * 超出额度返回 429 和 Retry-After。
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = PATH_HELPER.getPathWithinApplication(request);
+        String endpointClass = classify(request.getMethod(), path);
+        if (endpointClass != null) {
+            long waitMillis = rateLimiter.tryAcquire(endpointClass, callerOf(request, endpointClass));
+            if (waitMillis > 0) {
+                reject(response, waitMillis);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // 接口类别，与 app.rate-limit.limits 的键对应；静态资源不限流
+    private String classify(String method, String path) {
+        if (!path.startsWith("/api/")) {
+            return null;
+        }
+        if (path.startsWith("/api/auth/")) {
+            return "auth";
+        }
+        if (path.startsWith("/api/documents/search") || path.startsWith("/api/documents/suggest")) {
+            return "search";
+        }
+        if ("POST".equals(method) && (path.equals("/api/files/upload") || path.equals("/api/uploads"))) {
+            return "upload";
+        }
+        return "GET".equals(method) || "HEAD".equals(method) ? "read" : "write";
+    }
+
+    // 登录接口还没有身份，始终按 IP 计数
+    private String callerOf(HttpServletRequest request, String endpointClass) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!"auth".equals(endpointClass) && authentication != null
+                && authentication.getPrincipal() instanceof UserDetailsImpl) {
+            return "user:" + ((UserDetailsImpl) authentication.getPrincipal()).getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests\",\"retryAfterMs\":" + waitMillis + "}");
+    }
+}
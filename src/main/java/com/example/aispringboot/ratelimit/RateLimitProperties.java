@@ -0,0 +1,67 @@
+package com.example.aispringboot.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // 按接口类别配置，未配置的类别不限流
+    private Map<String, Limit> limits = new LinkedHashMap<>();
+
+    // 这些类别的令牌桶存放在数据库里，多个实例共享同一额度
+    private List<String> sharedClasses = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Limit> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, Limit> limits) {
+        this.limits = limits;
+    }
+
+    public List<String> getSharedClasses() {
+        return sharedClasses;
+    }
+
+    public void setSharedClasses(List<String> sharedClasses) {
+        this.sharedClasses = sharedClasses;
+    }
+
+    public static class Limit {
+        // 桶容量，即允许的突发请求数
+        private int capacity = 60;
+
+        // 每秒补充的令牌数
+        private double refillPerSecond = 10;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
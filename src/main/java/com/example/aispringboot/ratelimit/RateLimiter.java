@@ -0,0 +1,80 @@
+package com.example.aispringboot.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按接口类别和调用方（用户或 IP）限流。默认每个实例各自维护内存中的令牌桶；
+ * 配置为共享的类别交给 JdbcBucketStore，多个实例共用一个额度。
+ */
+@Component
+public class RateLimiter {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private JdbcBucketStore jdbcBucketStore;
+
+    // 空闲的桶早已补满，过期删除与重新创建等价
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    private final Map<String, AtomicLong> rejected = new ConcurrentHashMap<>();
+
+    private volatile Set<String> sharedClasses;
+
+    /**
+     * 为 endpointClass 类别下的 caller 取一个令牌。允许时返回 0，否则返回建议的重试等待毫秒数。
+     */
+    public long tryAcquire(String endpointClass, String caller) {
+        RateLimitProperties.Limit limit = properties.getLimits().get(endpointClass);
+        if (!properties.isEnabled() || limit == null) {
+            return 0;
+        }
+        String key = endpointClass + ":" + caller;
+        long waitMillis;
+        if (isShared(endpointClass)) {
+            waitMillis = jdbcBucketStore.tryAcquire(key, limit);
+        } else {
+            long waitNanos = buckets.get(key, k -> new TokenBucket(limit)).tryAcquire();
+            waitMillis = waitNanos > 0 ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)) : 0;
+        }
+        if (waitMillis > 0) {
+            rejected.computeIfAbsent(endpointClass, k -> new AtomicLong()).incrementAndGet();
+        }
+        return waitMillis;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("localBuckets", buckets.estimatedSize());
+        Map<String, Long> rejectedByClass = new LinkedHashMap<>();
+        rejected.forEach((endpointClass, count) -> rejectedByClass.put(endpointClass, count.get()));
+        stats.put("rejected", rejectedByClass);
+        return stats;
+    }
+
+    private boolean isShared(String endpointClass) {
+        Set<String> shared = sharedClasses;
+        if (shared == null) {
+            shared = new HashSet<>(properties.getSharedClasses());
+            sharedClasses = shared;
+        }
+        return shared.contains(endpointClass);
+    }
+}
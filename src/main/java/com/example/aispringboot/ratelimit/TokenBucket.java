@@ -0,0 +1,41 @@
+package com.example.aispringboot.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶，用 GCRA 实现：只保存下一个令牌的理论到达时间，一次 CAS 完成补充和扣减。
+ * 与按容量、速率定义的令牌桶行为相同。
+ */
+class TokenBucket {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong tat;
+
+    TokenBucket(RateLimitProperties.Limit limit) {
+        this.intervalNanos = intervalNanos(limit);
+        this.burstNanos = intervalNanos * limit.getCapacity();
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    // 取到令牌返回 0，否则返回还需等待的纳秒数
+    long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // 速率下限为每天一个令牌，避免除零和容量相乘溢出
+    static long intervalNanos(RateLimitProperties.Limit limit) {
+        double refillPerSecond = Math.max(limit.getRefillPerSecond(), 1.0 / 86_400);
+        return Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+    }
+}
@@ -1,22 +1,30 @@
 package com.example.aispringboot.repository;
 
-import com.example.aispringboot.model.Document;
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.User;
 import com.example.aispringboot.model.DocumentCollaborator;
-import com.example.aispringboot.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface DocumentCollaboratorRepository extends JpaRepository<DocumentCollaborator, Long> {
     
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<DocumentCollaborator> findByDocumentAndIsActiveTrue(Document document);
     
     List<DocumentCollaborator> findByDocument(Document document);
     
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<DocumentCollaborator> findByDocumentAndUser(Document document, User user);
     
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByDocumentAndUserAndIsActiveTrue(Document document, User user);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.DocumentLikeSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DocumentLikeSetRepository extends JpaRepository<DocumentLikeSet, Long> {
+}
@@ -2,25 +2,67 @@ package com.example.aispringboot.repository;
 
 import com.example.aispringboot.entity.Document;
 import com.example.aispringboot.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long> {
-    List<Document> findByUserAndIsDeletedFalseOrderByUpdatedAtDesc(User user);
+    // 返回完整文档（含正文）的列表查询都带 FETCH ALL PROPERTIES，避免逐条加载延迟的正文
+    @Query("SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.user = :user AND d.isDeleted = false "
+            + "ORDER BY d.updatedAt DESC")
+    List<Document> findByUserAndIsDeletedFalseOrderByUpdatedAtDesc(@Param("user") User user);
     
+    @Query("SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.isPublic = true AND d.isDeleted = false "
+            + "ORDER BY d.updatedAt DESC")
     List<Document> findByIsPublicTrueAndIsDeletedFalseOrderByUpdatedAtDesc();
     
     Optional<Document> findByIdAndIsDeletedFalse(Long id);
     
-    @Query("SELECT d FROM Document d WHERE d.user = :user AND d.title LIKE %:keyword% AND d.isDeleted = false")
+    @Query("SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.user = :user AND d.title LIKE %:keyword% AND d.isDeleted = false")
     List<Document> searchByUserAndTitle(@Param("user") User user, @Param("keyword") String keyword);
     
-    @Query("SELECT d FROM Document d WHERE d.isPublic = true AND d.title LIKE %:keyword% AND d.isDeleted = false")
+    @Query("SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.isPublic = true AND d.title LIKE %:keyword% AND d.isDeleted = false")
     List<Document> searchPublicByTitle(@Param("keyword") String keyword);
-}
\ No newline at end of file
+    
+    // 只用到元数据（如热门榜），不加载正文
+    List<Document> findByIdInAndIsDeletedFalse(Collection<Long> ids);
+    
+    @Query("SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.id IN :ids AND d.isDeleted = false")
+    List<Document> findWithContentByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT d.id, d.user.id FROM Document d WHERE d.id IN :ids AND d.isDeleted = false")
+    List<Object[]> findOwnerIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Document d SET d.isDeleted = true, d.deletedAt = :now, d.updatedAt = :now WHERE d.id IN :ids AND d.user.id = :userId AND d.isDeleted = false")
+    int softDeleteByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Document d SET d.isPublic = :isPublic, d.updatedAt = :now WHERE d.id IN :ids AND d.user.id = :userId AND d.isDeleted = false")
+    int updateVisibilityByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId,
+                                        @Param("isPublic") Boolean isPublic, @Param("now") LocalDateTime now);
+    
+    // 标题补全索引启动时只加载需要的列
+    @Query("SELECT d.id, d.title, d.user.id, d.isPublic FROM Document d WHERE d.isDeleted = false")
+    List<Object[]> findTitleIndexEntries();
+    
+    @Query("SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.user = :user AND d.isDeleted = true "
+            + "ORDER BY d.deletedAt DESC")
+    List<Document> findByUserAndIsDeletedTrueOrderByDeletedAtDesc(@Param("user") User user);
+    
+    Optional<Document> findByIdAndIsDeletedTrue(Long id);
+    
+    // 回收站过期文档，早期删除的记录没有 deletedAt，按 updatedAt 计算
+    @Query("SELECT d.id FROM Document d WHERE d.isDeleted = true AND "
+            + "(d.deletedAt < :cutoff OR (d.deletedAt IS NULL AND d.updatedAt < :cutoff)) ORDER BY d.id")
+    List<Long> findExpiredTrashIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
@@ -1,21 +1,93 @@
 package com.example.aispringboot.repository;
 
-import com.example.aispringboot.model.Document;
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.User;
 import com.example.aispringboot.model.File;
-import com.example.aispringboot.model.User;
+import com.example.aispringboot.payload.response.FileListItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FileRepository extends JpaRepository<File, Long> {
     
-    List<File> findByUserOrderByCreatedAtDesc(User user);
+    List<File> findByUserAndIsDeletedFalseOrderByCreatedAtDesc(User user);
     
-    List<File> findByDocumentOrderByCreatedAtDesc(Document document);
+    List<File> findByDocumentAndIsDeletedFalseOrderByCreatedAtDesc(Document document);
     
-    List<File> findByUserAndDocumentIsNullOrderByCreatedAtDesc(User user);
+    // 附件列表：投影直接取 document_id 外键，不初始化文档代理；按 id 倒序做 keyset 分页，
+    // beforeId 为上一页最后一条的 id，type 为 LIKE 模式，时间为左闭右开
+    @Query("SELECT new com.example.aispringboot.payload.response.FileListItem(f.id, f.fileName, f.originalName, "
+            + "f.fileType, f.fileSize, f.fileUrl, f.document.id, f.createdAt) FROM File f "
+            + "WHERE f.user.id = :userId AND f.isDeleted = false AND f.id < :beforeId "
+            + "AND (:type IS NULL OR f.fileType LIKE :type) "
+            + "AND (:from IS NULL OR f.createdAt >= :from) AND (:to IS NULL OR f.createdAt < :to) "
+            + "ORDER BY f.id DESC")
+    List<FileListItem> findUserListing(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+                                       @Param("type") String type, @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to, Pageable pageable);
+    
+    @Query("SELECT new com.example.aispringboot.payload.response.FileListItem(f.id, f.fileName, f.originalName, "
+            + "f.fileType, f.fileSize, f.fileUrl, f.document.id, f.createdAt) FROM File f "
+            + "WHERE f.document.id = :documentId AND f.isDeleted = false AND f.id < :beforeId "
+            + "AND (:type IS NULL OR f.fileType LIKE :type) "
+            + "AND (:from IS NULL OR f.createdAt >= :from) AND (:to IS NULL OR f.createdAt < :to) "
+            + "ORDER BY f.id DESC")
+    List<FileListItem> findDocumentListing(@Param("documentId") Long documentId, @Param("beforeId") Long beforeId,
+                                           @Param("type") String type, @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to, Pageable pageable);
+    
+    List<File> findByUserAndDocumentIsNullAndIsDeletedFalseOrderByCreatedAtDesc(User user);
     
     boolean existsByFileName(String fileName);
-}
\ No newline at end of file
+    
+    // 用户自己未删除的文件里是否已有这份内容，秒传只对这种情况生效
+    boolean existsByUserIdAndBlobHashAndIsDeletedFalse(Long userId, String blobHash);
+    
+    Optional<File> findByFileName(String fileName);
+    
+    Optional<File> findByIdAndIsDeletedFalse(Long id);
+    
+    // 存储迁移：按主键分批读取没有 blob 的早期文件
+    @Query("SELECT f.id, f.fileName, f.filePath FROM File f WHERE f.blobHash IS NULL AND f.id > :afterId ORDER BY f.id")
+    List<Object[]> findLegacyBatch(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE File f SET f.filePath = :newPath WHERE f.id = :id AND f.filePath = :oldPath")
+    int updateFilePath(@Param("id") Long id, @Param("oldPath") String oldPath, @Param("newPath") String newPath);
+    
+    @Modifying
+    @Query("UPDATE File f SET f.filePath = :newPath WHERE f.filePath = :oldPath")
+    int replaceFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+    
+    @Modifying
+    @Query("UPDATE File f SET f.filePath = :newPath WHERE f.blobHash = :blobHash")
+    int updateFilePathByBlobHash(@Param("blobHash") String blobHash, @Param("newPath") String newPath);
+    
+    // 存储巡检：按主键分批读取全部附件的存放位置
+    @Query("SELECT f.id, f.filePath FROM File f WHERE f.id > :afterId ORDER BY f.id")
+    List<Object[]> findPathBatch(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // 批量删除：一次查出文件所有者和所属文档所有者用于权限判断，大小和文档用于扣减配额
+    @Query("SELECT f.id, f.fileName, f.user.id, d.user.id, f.fileSize, d.id FROM File f LEFT JOIN f.document d "
+            + "WHERE f.id IN :ids AND f.isDeleted = false")
+    List<Object[]> findDeleteCandidates(@Param("ids") Collection<Long> ids);
+    
+    // 逐行更新，返回 1 表示由本次调用移入回收站，并发删除同一文件时只有一方计入
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE File f SET f.isDeleted = true, f.deletedAt = :now, f.updatedAt = :now "
+            + "WHERE f.id = :id AND f.isDeleted = false")
+    int softDeleteById(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 保留期已过的已删除文件
+    @Query("SELECT f FROM File f WHERE f.isDeleted = true AND f.deletedAt < :cutoff ORDER BY f.id")
+    List<File> findExpiredDeleted(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
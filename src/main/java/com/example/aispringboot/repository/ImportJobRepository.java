@@ -0,0 +1,40 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    Optional<ImportJob> findByIdAndUserId(Long id, Long userId);
+
+    List<ImportJob> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    List<ImportJob> findByStatusIn(Collection<String> statuses);
+
+    // 认领任务：只有一个调用方能把状态改成 RUNNING
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.status = 'RUNNING', j.errorMessage = NULL, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status IN :statuses")
+    int claim(@Param("id") Long id, @Param("statuses") Collection<String> statuses, @Param("now") LocalDateTime now);
+
+    // 重启后认领上次中断、仍是 RUNNING 的任务；按读到的 updatedAt 比较，多个实例同时启动时只有一个成功
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.updatedAt = :seenUpdatedAt")
+    int claimInterrupted(@Param("id") Long id, @Param("seenUpdatedAt") LocalDateTime seenUpdatedAt,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.status = 'FAILED', j.errorMessage = :errorMessage, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = 'RUNNING'")
+    int markFailed(@Param("id") Long id, @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+}
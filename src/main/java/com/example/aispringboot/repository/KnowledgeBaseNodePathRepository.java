@@ -0,0 +1,52 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.KnowledgeBaseNodePath;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface KnowledgeBaseNodePathRepository extends JpaRepository<KnowledgeBaseNodePath, KnowledgeBaseNodePath.PathId> {
+
+    @Query("SELECT p.descendantId FROM KnowledgeBaseNodePath p WHERE p.ancestorId = :nodeId")
+    List<Long> findSubtreeIds(@Param("nodeId") Long nodeId);
+
+    @Query("SELECT COUNT(p) FROM KnowledgeBaseNodePath p WHERE p.ancestorId = :nodeId AND p.depth > 0")
+    long countDescendants(@Param("nodeId") Long nodeId);
+
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+    // 新节点：复制父节点的全部祖先路径并加上自身
+    @Modifying
+    @Query(value = "INSERT INTO kb_node_paths (ancestor_id, descendant_id, depth) "
+            + "SELECT p.ancestor_id, :nodeId, p.depth + 1 FROM kb_node_paths p WHERE p.descendant_id = :parentId "
+            + "UNION ALL SELECT :nodeId, :nodeId, 0", nativeQuery = true)
+    int insertPathsForChild(@Param("nodeId") Long nodeId, @Param("parentId") Long parentId);
+
+    @Modifying
+    @Query(value = "INSERT INTO kb_node_paths (ancestor_id, descendant_id, depth) VALUES (:nodeId, :nodeId, 0)",
+            nativeQuery = true)
+    int insertSelfPath(@Param("nodeId") Long nodeId);
+
+    // 移动子树第一步：断开子树与原祖先之间的路径
+    @Modifying
+    @Query("DELETE FROM KnowledgeBaseNodePath p WHERE p.descendantId IN :subtree AND p.ancestorId NOT IN :subtree")
+    int detachSubtree(@Param("subtree") Collection<Long> subtree);
+
+    // 移动子树第二步：新父节点的每个祖先 × 子树内每条路径
+    @Modifying
+    @Query(value = "INSERT INTO kb_node_paths (ancestor_id, descendant_id, depth) "
+            + "SELECT sup.ancestor_id, sub.descendant_id, sup.depth + sub.depth + 1 "
+            + "FROM kb_node_paths sup CROSS JOIN kb_node_paths sub "
+            + "WHERE sup.descendant_id = :parentId AND sub.ancestor_id = :nodeId", nativeQuery = true)
+    int attachSubtree(@Param("nodeId") Long nodeId, @Param("parentId") Long parentId);
+
+    @Modifying
+    @Query("DELETE FROM KnowledgeBaseNodePath p WHERE p.descendantId IN :subtree")
+    int deleteByDescendantIdIn(@Param("subtree") Collection<Long> subtree);
+}
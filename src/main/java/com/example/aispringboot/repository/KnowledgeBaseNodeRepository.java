@@ -0,0 +1,37 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.KnowledgeBaseNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface KnowledgeBaseNodeRepository extends JpaRepository<KnowledgeBaseNode, Long> {
+    // 整个目录一次取出，按 (parent_id, sort_key) 走索引
+    List<KnowledgeBaseNode> findByKnowledgeBaseIdOrderByParentIdAscSortKeyAsc(Long knowledgeBaseId);
+
+    Optional<KnowledgeBaseNode> findTopByKnowledgeBaseIdAndParentIdOrderBySortKeyDesc(Long knowledgeBaseId, Long parentId);
+
+    List<KnowledgeBaseNode> findByKnowledgeBaseIdAndParentIdOrderBySortKeyAsc(Long knowledgeBaseId, Long parentId);
+
+    // 插入位置两侧的相邻节点；多取一条，以便跳过正在移动的节点
+    List<KnowledgeBaseNode> findFirst2ByKnowledgeBaseIdAndParentIdAndSortKeyGreaterThanOrderBySortKeyAsc(
+            Long knowledgeBaseId, Long parentId, String sortKey);
+
+    List<KnowledgeBaseNode> findFirst2ByKnowledgeBaseIdAndParentIdAndSortKeyLessThanOrderBySortKeyDesc(
+            Long knowledgeBaseId, Long parentId, String sortKey);
+
+    @Query("SELECT n FROM KnowledgeBaseNode n, KnowledgeBaseNodePath p "
+            + "WHERE p.ancestorId = :nodeId AND n.id = p.descendantId ORDER BY p.depth, n.sortKey")
+    List<KnowledgeBaseNode> findSubtree(@Param("nodeId") Long nodeId);
+
+    @Modifying
+    @Query("DELETE FROM KnowledgeBaseNode n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
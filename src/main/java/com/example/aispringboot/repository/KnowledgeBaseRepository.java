@@ -0,0 +1,12 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.KnowledgeBase;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface KnowledgeBaseRepository extends JpaRepository<KnowledgeBase, Long> {
+    List<KnowledgeBase> findByUserIdOrderByUpdatedAtDesc(Long userId);
+}
@@ -0,0 +1,34 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.StorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, String> {
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StorageUsage u SET u.bytesUsed = u.bytesUsed + :bytes, u.fileCount = u.fileCount + :files, "
+            + "u.updatedAt = :now WHERE u.id = :id")
+    int add(@Param("id") String id, @Param("bytes") long bytes, @Param("files") long files,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (id, bytes_used, file_count, updated_at) "
+            + "VALUES (:id, :bytes, :files, :now)", nativeQuery = true)
+    int insert(@Param("id") String id, @Param("bytes") long bytes, @Param("files") long files,
+               @Param("now") LocalDateTime now);
+
+    // 校准：只有计数在读取之后没有变化时才覆盖，避免冲掉并发的上传和删除
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StorageUsage u SET u.bytesUsed = :bytes, u.fileCount = :files, u.updatedAt = :now "
+            + "WHERE u.id = :id AND u.bytesUsed = :seenBytes AND u.fileCount = :seenFiles")
+    int reconcile(@Param("id") String id, @Param("bytes") long bytes, @Param("files") long files,
+                  @Param("seenBytes") long seenBytes, @Param("seenFiles") long seenFiles,
+                  @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,55 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.StoredBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1, b.updatedAt = :now WHERE b.sha256 = :sha256")
+    int incrementRefCount(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    // 直接插入，主键冲突说明并发上传了相同内容（save 会走 merge，可能覆盖对方的引用计数）
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (sha256, size, storage_path, ref_count, created_at, updated_at) "
+            + "VALUES (:sha256, :size, :storagePath, 1, :now, :now)", nativeQuery = true)
+    int insertWithOneReference(@Param("sha256") String sha256, @Param("size") Long size,
+                               @Param("storagePath") String storagePath, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.updatedAt = :now "
+            + "WHERE b.sha256 = :sha256 AND b.refCount > 0")
+    int decrementRefCount(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.sha256 FROM StoredBlob b WHERE b.refCount <= 0 AND b.updatedAt < :cutoff ORDER BY b.updatedAt")
+    List<String> findUnreferenced(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // 回收时锁住该行，并发的引用计数加一会等回收结束后再判断
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StoredBlob b WHERE b.sha256 = :sha256")
+    Optional<StoredBlob> findForUpdate(@Param("sha256") String sha256);
+
+    // 存储迁移：按摘要分批读取
+    @Query("SELECT b.sha256, b.storagePath FROM StoredBlob b WHERE b.sha256 > :afterHash ORDER BY b.sha256")
+    List<Object[]> findBatch(@Param("afterHash") String afterHash, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.storagePath = :newPath WHERE b.sha256 = :sha256")
+    int updateStoragePath(@Param("sha256") String sha256, @Param("newPath") String newPath);
+
+    // 存储巡检：带上大小，用于核对文件
+    @Query("SELECT b.sha256, b.size, b.storagePath FROM StoredBlob b WHERE b.sha256 > :afterHash ORDER BY b.sha256")
+    List<Object[]> findScrubBatch(@Param("afterHash") String afterHash, Pageable pageable);
+}
@@ -0,0 +1,26 @@
+package com.example.aispringboot.repository;
+
+import com.example.aispringboot.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    Optional<UploadSession> findByIdAndUserId(String id, Long userId);
+
+    List<UploadSession> findByStatusAndUpdatedAtBefore(String status, LocalDateTime cutoff);
+
+    // 只有偏移量仍是写入前的值时才推进，防止并发分片互相覆盖进度
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.uploadOffset = :newOffset, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.uploadOffset = :expectedOffset AND s.status = 'ACTIVE'")
+    int advanceOffset(@Param("id") String id, @Param("expectedOffset") Long expectedOffset,
+                      @Param("newOffset") Long newOffset, @Param("now") LocalDateTime now);
+}
@@ -1,5 +1,7 @@
 package com.example.aispringboot.security;
 
+import com.example.aispringboot.ratelimit.RateLimitFilter;
+import com.example.aispringboot.ratelimit.RateLimiter;
 import com.example.aispringboot.security.jwt.AuthEntryPointJwt;
 import com.example.aispringboot.security.jwt.AuthTokenFilter;
 import com.example.aispringboot.security.services.UserDetailsServiceImpl;
@@ -27,6 +29,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -57,11 +62,14 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/api/auth/**").permitAll()
                 .antMatchers("/api/public/**").permitAll()
                 .antMatchers("/h2-console/**").permitAll()
+                .antMatchers("/index.html", "/collaborate.html", "/css/**", "/js/**").permitAll()
                 .antMatchers("/", "/error", "/csrf", "/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs", "/v3/api-docs/**").permitAll()
                 .anyRequest().authenticated();
 
         http.headers().frameOptions().disable();
 
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        // 不注册为 Bean，避免被容器再作为普通过滤器注册一次
+        http.addFilterAfter(new RateLimitFilter(rateLimiter), AuthTokenFilter.class);
     }
 }
\ No newline at end of file
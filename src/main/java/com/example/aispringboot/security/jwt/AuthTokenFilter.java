@@ -33,10 +33,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            JwtUtils.VerifiedToken token = jwt != null ? jwtUtils.verify(jwt) : null;
+            if (token != null) {
+                // 用户信息取自令牌声明；旧令牌没有这些声明，回退到查库
+                UserDetails userDetails = token.getPrincipal() != null ? token.getPrincipal()
+                        : userDetailsService.loadUserByUsername(token.getUsername());
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,14 +1,29 @@
 package com.example.aispringboot.security.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import io.jsonwebtoken.*;
 
@@ -16,32 +31,93 @@ import io.jsonwebtoken.*;
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_EMAIL = "email";
+    private static final String CLAIM_ROLES = "roles";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration}")
     private int jwtExpirationMs;
 
+    // 验证过的令牌缓存的秒数，不超过令牌本身的有效期
+    @Value("${app.jwt.verified-cache-seconds:60}")
+    private long verifiedCacheSeconds;
+
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    // 解析器线程安全，只构建一次
+    private JwtParser jwtParser;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        jwtParser = Jwts.parserBuilder().setSigningKey(jwtSecret).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(verifiedCacheSeconds))
+                .build();
+    }
+
+    // 用户 id、邮箱和角色写进令牌，请求认证时不再查库
     public String generateJwtToken(Authentication authentication) {
 
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
 
         return Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
+                .claim(CLAIM_USER_ID, userPrincipal.getId())
+                .claim(CLAIM_EMAIL, userPrincipal.getEmail())
+                .claim(CLAIM_ROLES, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(SignatureAlgorithm.HS512, jwtSecret)
                 .compact();
     }
 
+    /**
+     * 校验令牌并从声明构建当前用户，令牌无效时返回 null。
+     * 同一令牌在短时间内重复出现时直接取缓存，跳过签名校验；缓存按令牌的 SHA-256 索引，不保存令牌原文。
+     * 早于本版本签发、没有用户 id 声明的令牌返回 principal 为 null 的结果，由调用方查库。
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (cached.getExpiresAt() > System.currentTimeMillis()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(key);
+            return null;
+        }
+
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), principalOf(claims),
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    private Claims parseClaims(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (SignatureException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -54,6 +130,54 @@ public class JwtUtils {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    private UserDetailsImpl principalOf(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        if (userId == null) {
+            return null;
+        }
+        Object roles = claims.get(CLAIM_ROLES);
+        List<GrantedAuthority> authorities = roles instanceof Collection
+                ? ((Collection<?>) roles).stream()
+                        .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                        .collect(Collectors.toList())
+                : Collections.emptyList();
+        return new UserDetailsImpl(userId.longValue(), claims.getSubject(), claims.get(CLAIM_EMAIL, String.class),
+                null, authorities);
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class VerifiedToken {
+        private final String username;
+        private final UserDetailsImpl principal;
+        private final long expiresAt;
+
+        VerifiedToken(String username, UserDetailsImpl principal, long expiresAt) {
+            this.username = username;
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public UserDetailsImpl getPrincipal() {
+            return principal;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
     }
-}
\ No newline at end of file
+}
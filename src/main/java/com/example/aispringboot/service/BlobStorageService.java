@@ -0,0 +1,176 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.StoredBlob;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import com.example.aispringboot.storage.ObjectStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 内容寻址附件存储：上传时边写临时文件边计算 SHA-256，已存在相同内容时只增加引用计数并丢弃临时文件，
+ * 否则把临时文件交给存储后端（本地为分片目录 ab/cd/&lt;sha256&gt;）。引用计数归零的数据保留一段时间后再回收。
+ */
+@Service
+public class BlobStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(BlobStorageService.class);
+
+    @Value("${app.blob.gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    @Value("${app.blob.gc-batch-size:500}")
+    private int gcBatchSize;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private LocalFileStore localFileStore;
+
+    @Autowired
+    private ObjectStore objectStore;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    // 引用计数单独提交，不受调用方事务回滚影响；调用方失败时通过 release 归还
+    private final TransactionTemplate transactionTemplate;
+
+    public BlobStorageService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // 流式写入并去重，返回已持有一个引用的 blob
+    public StoredBlob store(InputStream inputStream) throws IOException {
+        Path temp = localFileStore.newTempFile("upload-");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(inputStream, digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return acquire(toHex(digest.digest()), size, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 已经完整落盘的文件（如分片上传），读一遍计算摘要后移动或丢弃
+    public StoredBlob store(Path source) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // 只为计算摘要
+            }
+        }
+        try {
+            return acquire(toHex(digest.digest()), Files.size(source), source);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    // 客户端预先给出摘要时，内容已存在就直接引用，不需要再传输
+    public Optional<StoredBlob> acquireExisting(String sha256) {
+        Integer updated = transactionTemplate.execute(status ->
+                storedBlobRepository.incrementRefCount(sha256, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            return Optional.empty();
+        }
+        return storedBlobRepository.findById(sha256);
+    }
+
+    public void release(String sha256) {
+        transactionTemplate.executeWithoutResult(status ->
+                storedBlobRepository.decrementRefCount(sha256, LocalDateTime.now()));
+    }
+
+    // 回收引用计数为零且超过宽限期的数据，行锁保证不会删掉刚被重新引用的文件
+    @Scheduled(fixedDelayString = "${app.blob.gc-interval-ms:600000}")
+    public void collectUnreferenced() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(gcGraceMinutes);
+        List<String> candidates = storedBlobRepository.findUnreferenced(cutoff, PageRequest.of(0, gcBatchSize));
+        int removed = 0;
+        for (String sha256 : candidates) {
+            Boolean deleted = transactionTemplate.execute(status -> {
+                Optional<StoredBlob> blob = storedBlobRepository.findForUpdate(sha256);
+                if (!blob.isPresent() || blob.get().getRefCount() > 0) {
+                    return false;
+                }
+                try {
+                    objectStore.delete(blob.get().getStoragePath());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                storedBlobRepository.delete(blob.get());
+                return true;
+            });
+            if (Boolean.TRUE.equals(deleted)) {
+                thumbnailService.deleteDerivatives(sha256);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed {} unreferenced blobs", removed);
+        }
+    }
+
+    private StoredBlob acquire(String sha256, long size, Path temp) throws IOException {
+        Optional<StoredBlob> existing = acquireExisting(sha256);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        // 先把文件放到位再插入记录，记录可见时文件一定存在
+        String location = objectStore.put(sha256, temp);
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    storedBlobRepository.insertWithOneReference(sha256, size, location, LocalDateTime.now()));
+            return new StoredBlob(sha256, size, location);
+        } catch (DataIntegrityViolationException e) {
+            // 并发上传了相同内容，对方已经建档，改为增加引用
+            return acquireExisting(sha256).orElseThrow(() -> e);
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.payload.response.BatchItemResult;
+import com.example.aispringboot.repository.DocumentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文档批量操作：一次查询完成权限校验，一次 JDBC 批量或一条 UPDATE 完成写入，逐项返回结果。
+ */
+@Service
+public class DocumentBatchService {
+
+    private static final String INSERT_SQL = "INSERT INTO documents "
+            + "(title, content, user_id, created_at, updated_at, is_public, is_deleted, view_count, like_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, false, 0, 0)";
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TitleSuggestService titleSuggestService;
+
+    // 批量获取：公开文档或自己的文档，不增加浏览次数
+    @Transactional(readOnly = true)
+    public Map<String, Object> fetch(List<Long> ids, Long currentUserId) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, Document> found = new HashMap<>();
+        for (Document document : documentRepository.findWithContentByIdIn(requested)) {
+            found.put(document.getId(), document);
+        }
+
+        List<Document> documents = new ArrayList<>();
+        List<BatchItemResult> results = new ArrayList<>();
+        for (Long id : requested) {
+            Document document = found.get(id);
+            if (document == null) {
+                results.add(BatchItemResult.ofId(id, BatchItemResult.NOT_FOUND));
+            } else if (document.getIsPublic() || document.getUser().getId().equals(currentUserId)) {
+                documents.add(document);
+                results.add(BatchItemResult.ofId(id, BatchItemResult.OK));
+            } else {
+                results.add(BatchItemResult.ofId(id, BatchItemResult.FORBIDDEN));
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("documents", documents);
+        response.put("results", results);
+        return response;
+    }
+
+    // 批量创建：标题为空的条目跳过，其余一次 executeBatch 写入
+    @Transactional
+    public List<BatchItemResult> create(List<Document> requests, Long userId) {
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Document request = requests.get(i);
+            if (request == null || !StringUtils.hasText(request.getTitle())) {
+                results.add(BatchItemResult.ofIndex(i, null, BatchItemResult.INVALID));
+            } else {
+                results.add(null);
+                validIndexes.add(i);
+            }
+        }
+        if (validIndexes.isEmpty()) {
+            return results;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> generatedIds = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Integer index : validIndexes) {
+                    Document request = requests.get(index);
+                    ps.setString(1, request.getTitle());
+                    ps.setString(2, request.getContent());
+                    ps.setLong(3, userId);
+                    ps.setTimestamp(4, now);
+                    ps.setTimestamp(5, now);
+                    ps.setBoolean(6, request.getIsPublic() != null && request.getIsPublic());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(validIndexes.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+
+        for (int i = 0; i < validIndexes.size(); i++) {
+            Long id = generatedIds != null && i < generatedIds.size() ? generatedIds.get(i) : null;
+            int index = validIndexes.get(i);
+            results.set(index, BatchItemResult.ofIndex(index, id, BatchItemResult.OK));
+            if (id != null) {
+                Document request = requests.get(index);
+                titleSuggestService.index(id, request.getTitle(), userId,
+                        request.getIsPublic() != null && request.getIsPublic());
+            }
+        }
+        return results;
+    }
+
+    // 批量软删除
+    @Transactional
+    public List<BatchItemResult> softDelete(List<Long> ids, Long userId) {
+        Map<Long, String> statuses = checkOwnership(ids, userId);
+        List<Long> owned = ownedIds(statuses);
+        if (!owned.isEmpty()) {
+            documentRepository.softDeleteByIdInAndUserId(owned, userId, LocalDateTime.now());
+            titleSuggestService.remove(owned);
+        }
+        return toResults(statuses);
+    }
+
+    // 批量切换公开状态
+    @Transactional
+    public List<BatchItemResult> updateVisibility(List<Long> ids, Boolean isPublic, Long userId) {
+        Map<Long, String> statuses = checkOwnership(ids, userId);
+        List<Long> owned = ownedIds(statuses);
+        if (!owned.isEmpty()) {
+            documentRepository.updateVisibilityByIdInAndUserId(owned, userId, isPublic, LocalDateTime.now());
+            titleSuggestService.updateVisibility(owned, isPublic);
+        }
+        return toResults(statuses);
+    }
+
+    // 辅助方法：一次查询得到所有文档的所有者
+    private Map<Long, String> checkOwnership(List<Long> ids, Long userId) {
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        for (Long id : ids) {
+            statuses.put(id, BatchItemResult.NOT_FOUND);
+        }
+        for (Object[] row : documentRepository.findOwnerIdsByIdIn(statuses.keySet())) {
+            Long id = (Long) row[0];
+            Long ownerId = (Long) row[1];
+            statuses.put(id, ownerId.equals(userId) ? BatchItemResult.OK : BatchItemResult.FORBIDDEN);
+        }
+        return statuses;
+    }
+
+    private List<Long> ownedIds(Map<Long, String> statuses) {
+        List<Long> owned = new ArrayList<>();
+        statuses.forEach((id, status) -> {
+            if (BatchItemResult.OK.equals(status)) {
+                owned.add(id);
+            }
+        });
+        return owned;
+    }
+
+    private List<BatchItemResult> toResults(Map<Long, String> statuses) {
+        List<BatchItemResult> results = new ArrayList<>(statuses.size());
+        statuses.forEach((id, status) -> results.add(BatchItemResult.ofId(id, status)));
+        return results;
+    }
+}
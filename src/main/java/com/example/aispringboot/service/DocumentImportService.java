@@ -0,0 +1,493 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.ImportJob;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.payload.response.BatchItemResult;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.ImportJobRepository;
+import com.example.aispringboot.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Markdown/HTML 压缩包批量导入。
+ *
+ * 条目按"附件在前、页面在后、各自按路径排序"的固定顺序处理，每批在线程池中并行解析，
+ * 然后在一个事务里批量插入文档并推进 processedEntries 检查点；失败或重启后从检查点继续。
+ * 附件文件名由任务ID和条目序号决定，重复执行同一批不会产生重复记录，页面中的相对链接可以直接改写。
+ * 单个条目和整个压缩包解压后的字节数都有上限（防压缩炸弹），超出时整个任务失败。
+ */
+@Service
+public class DocumentImportService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentImportService.class);
+
+    private static final Pattern MARKDOWN_LINK = Pattern.compile("(!?\\[[^\\]]*\\]\\()([^)\\s]+)");
+    private static final Pattern HTML_LINK = Pattern.compile("((?:src|href)\\s*=\\s*[\"'])([^\"']+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MARKDOWN_TITLE = Pattern.compile("^#\\s+(.+)$", Pattern.MULTILINE);
+    private static final Pattern HTML_TITLE = Pattern.compile("<title[^>]*>(.*?)</title>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_H1 = Pattern.compile("<h1[^>]*>(.*?)</h1>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_BODY = Pattern.compile("<body[^>]*>(.*)</body>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.import.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.import.max-entry-bytes:52428800}")
+    private long maxEntryBytes;
+
+    @Value("${app.import.max-total-bytes:1073741824}")
+    private long maxTotalBytes;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private DocumentBatchService documentBatchService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    @Qualifier("importJobExecutor")
+    private ThreadPoolTaskExecutor importJobExecutor;
+
+    @Autowired
+    @Qualifier("importWorkerExecutor")
+    private ThreadPoolTaskExecutor importWorkerExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DocumentImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 保存上传的压缩包并创建导入任务
+    public ImportJob submit(Long userId, MultipartFile archive) throws IOException {
+        Path importDir = Paths.get(uploadDir, "imports");
+        Files.createDirectories(importDir);
+        Path archivePath = importDir.resolve(UUID.randomUUID().toString() + ".zip");
+        try (InputStream inputStream = archive.getInputStream()) {
+            Files.copy(inputStream, archivePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        ImportJob job = importJobRepository.save(
+                new ImportJob(userId, archive.getOriginalFilename(), archivePath.toString()));
+        start(job.getId());
+        return job;
+    }
+
+    /**
+     * 把待处理或失败的任务改成 RUNNING 后提交执行，返回 false 表示任务已被其他请求或实例认领。
+     */
+    public boolean start(Long jobId) {
+        Integer claimed = transactionTemplate.execute(status -> importJobRepository.claim(
+                jobId, Arrays.asList(ImportJob.PENDING, ImportJob.FAILED), LocalDateTime.now()));
+        if (claimed == null || claimed != 1) {
+            return false;
+        }
+        execute(jobId);
+        return true;
+    }
+
+    // 应用重启后继续被中断的任务
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (ImportJob job : importJobRepository.findByStatusIn(Arrays.asList(ImportJob.PENDING, ImportJob.RUNNING))) {
+            try {
+                boolean claimed;
+                if (ImportJob.RUNNING.equals(job.getStatus())) {
+                    Integer updated = transactionTemplate.execute(status -> importJobRepository.claimInterrupted(
+                            job.getId(), job.getUpdatedAt(), LocalDateTime.now()));
+                    claimed = updated != null && updated == 1;
+                    if (claimed) {
+                        execute(job.getId());
+                    }
+                } else {
+                    claimed = start(job.getId());
+                }
+                if (claimed) {
+                    logger.info("Resuming import job {} from entry {}", job.getId(), job.getProcessedEntries());
+                }
+            } catch (TaskRejectedException e) {
+                logger.warn("Import job {} not resumed: queue is full", job.getId());
+            }
+        }
+    }
+
+    private void execute(Long jobId) {
+        try {
+            importJobExecutor.execute(() -> run(jobId));
+        } catch (TaskRejectedException e) {
+            // 队列已满，退回 FAILED 以便稍后重试
+            transactionTemplate.executeWithoutResult(status ->
+                    importJobRepository.markFailed(jobId, "Import queue is full", LocalDateTime.now()));
+            throw e;
+        }
+    }
+
+    // 只执行已认领（RUNNING）的任务
+    private void run(Long jobId) {
+        ImportJob job = importJobRepository.findById(jobId).orElse(null);
+        if (job == null || !ImportJob.RUNNING.equals(job.getStatus())) {
+            return;
+        }
+
+        try (ZipFile zip = new ZipFile(job.getArchivePath(), StandardCharsets.UTF_8)) {
+            User user = userRepository.findById(job.getUserId())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            List<ZipEntry> entries = orderedEntries(zip);
+            checkDeclaredSizes(entries);
+            Map<String, String> assetNames = assetFileNames(job.getId(), entries);
+            job.setTotalEntries(entries.size());
+            job = importJobRepository.save(job);
+
+            // 声明的大小可以伪造，解压时再按实际读出的字节数计数
+            AtomicLong extracted = new AtomicLong();
+            for (int start = job.getProcessedEntries(); start < entries.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, entries.size());
+                job = processBatch(job, zip, entries.subList(start, end), end, assetNames, user, extracted);
+            }
+
+            job.setStatus(ImportJob.COMPLETED);
+            importJobRepository.save(job);
+            Files.deleteIfExists(Paths.get(job.getArchivePath()));
+            logger.info("Import job {} completed: {} documents, {} files, {} failed",
+                    job.getId(), job.getImportedDocuments(), job.getImportedFiles(), job.getFailedEntries());
+        } catch (Exception e) {
+            logger.error("Import job {} failed at entry {}", jobId, job.getProcessedEntries(), e);
+            job.setStatus(ImportJob.FAILED);
+            job.setErrorMessage(e.getMessage() != null && e.getMessage().length() > 1000
+                    ? e.getMessage().substring(0, 1000) : e.getMessage());
+            importJobRepository.save(job);
+        }
+    }
+
+    private ImportJob processBatch(ImportJob job, ZipFile zip, List<ZipEntry> batch, int checkpoint,
+                                   Map<String, String> assetNames, User user, AtomicLong extracted)
+            throws InterruptedException, IOException {
+        // 并行解析页面、写入附件
+        List<Future<Object>> futures = new ArrayList<>(batch.size());
+        for (ZipEntry entry : batch) {
+            Callable<Object> task = () -> isPage(entry.getName())
+                    ? convertPage(open(zip, entry, extracted), entry, assetNames)
+                    : storeAsset(zip, entry, assetNames.get(entry.getName()), user, extracted);
+            futures.add(importWorkerExecutor.submit(task));
+        }
+
+        List<Document> documents = new ArrayList<>();
+        int files = 0;
+        int failed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                Object result = futures.get(i).get();
+                if (result instanceof Document) {
+                    documents.add((Document) result);
+                } else {
+                    files++;
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ArchiveLimitException) {
+                    throw (ArchiveLimitException) e.getCause();
+                }
+                failed++;
+                logger.warn("Import job {} skipped entry {}: {}", job.getId(), batch.get(i).getName(),
+                        e.getCause().getMessage());
+            }
+        }
+
+        // 文档插入与检查点在同一事务内提交
+        int importedFiles = files;
+        int failedEntries = failed;
+        return transactionTemplate.execute(status -> {
+            ImportJob current = importJobRepository.findById(job.getId())
+                    .orElseThrow(() -> new RuntimeException("Import job not found"));
+            int imported = 0;
+            if (!documents.isEmpty()) {
+                for (BatchItemResult result : documentBatchService.create(documents, job.getUserId())) {
+                    if (BatchItemResult.OK.equals(result.getStatus())) {
+                        imported++;
+                    }
+                }
+            }
+            current.setImportedDocuments(current.getImportedDocuments() + imported);
+            current.setImportedFiles(current.getImportedFiles() + importedFiles);
+            current.setFailedEntries(current.getFailedEntries() + failedEntries + documents.size() - imported);
+            current.setProcessedEntries(checkpoint);
+            return importJobRepository.save(current);
+        });
+    }
+
+    private String storeAsset(ZipFile zip, ZipEntry entry, String fileName, User user, AtomicLong extracted)
+            throws IOException {
+        // 已在上一次执行中写入
+        if (fileRepository.existsByFileName(fileName)) {
+            return fileName;
+        }
+        String originalName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+        // 超出配额的附件按失败条目计入
+        try (QuotaService.Reservation ignored = quotaService.reserve(user.getId(), null, entry.getSize());
+             InputStream inputStream = open(zip, entry, extracted)) {
+            fileStorageService.store(inputStream, originalName, Files.probeContentType(Paths.get(originalName)),
+                    user, null, fileName);
+        }
+        return fileName;
+    }
+
+    private Document convertPage(InputStream entryStream, ZipEntry entry, Map<String, String> assetNames)
+            throws IOException {
+        String raw;
+        try (InputStream inputStream = entryStream) {
+            raw = new String(readAll(inputStream), StandardCharsets.UTF_8);
+        }
+
+        String name = entry.getName();
+        String baseName = name.substring(name.lastIndexOf('/') + 1);
+        String fallbackTitle = baseName.contains(".") ? baseName.substring(0, baseName.lastIndexOf('.')) : baseName;
+
+        Document document = new Document();
+        if (isHtml(name)) {
+            String title = firstGroup(HTML_TITLE, raw);
+            if (title == null) {
+                title = firstGroup(HTML_H1, raw);
+            }
+            String body = firstGroup(HTML_BODY, raw);
+            document.setTitle(truncate(title != null ? HTML_TAG.matcher(title).replaceAll("").trim() : fallbackTitle));
+            document.setContent(rewriteLinks(HTML_LINK, body != null ? body : raw, name, assetNames));
+        } else {
+            String title = firstGroup(MARKDOWN_TITLE, raw);
+            document.setTitle(truncate(title != null ? title.trim() : fallbackTitle));
+            document.setContent(rewriteLinks(MARKDOWN_LINK, raw, name, assetNames));
+        }
+        if (document.getTitle().isEmpty()) {
+            document.setTitle(truncate(fallbackTitle));
+        }
+        document.setIsPublic(false);
+        return document;
+    }
+
+    // 辅助方法：把页面里指向压缩包内资源的相对路径改成下载地址
+    private String rewriteLinks(Pattern pattern, String content, String pageName, Map<String, String> assetNames) {
+        Matcher matcher = pattern.matcher(content);
+        StringBuffer result = new StringBuffer(content.length());
+        while (matcher.find()) {
+            String target = matcher.group(2);
+            String fileName = assetNames.get(resolve(pageName, target));
+            String replacement = fileName != null ? "/api/files/download/" + fileName : target;
+            matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(1) + replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private String resolve(String pageName, String target) {
+        String lower = target.toLowerCase(Locale.ROOT);
+        if (lower.contains("://") || lower.startsWith("data:") || lower.startsWith("#")
+                || lower.startsWith("mailto:") || target.startsWith("/")) {
+            return null;
+        }
+        int cut = target.indexOf('?');
+        if (cut < 0) {
+            cut = target.indexOf('#');
+        }
+        String path = cut >= 0 ? target.substring(0, cut) : target;
+
+        Deque<String> segments = new ArrayDeque<>();
+        int slash = pageName.lastIndexOf('/');
+        if (slash >= 0) {
+            for (String segment : pageName.substring(0, slash).split("/")) {
+                segments.addLast(segment);
+            }
+        }
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                segments.pollLast();
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    // 按中央目录里声明的大小先检查一遍，明显超限的压缩包不解压任何内容
+    private void checkDeclaredSizes(List<ZipEntry> entries) throws ArchiveLimitException {
+        long total = 0;
+        for (ZipEntry entry : entries) {
+            long size = Math.max(entry.getSize(), 0);
+            if (size > maxEntryBytes) {
+                throw new ArchiveLimitException("Entry " + entry.getName() + " exceeds " + maxEntryBytes + " bytes");
+            }
+            total += size;
+        }
+        if (total > maxTotalBytes) {
+            throw new ArchiveLimitException("Archive expands to more than " + maxTotalBytes + " bytes");
+        }
+    }
+
+    private InputStream open(ZipFile zip, ZipEntry entry, AtomicLong extracted) throws IOException {
+        return new LimitedEntryStream(zip.getInputStream(entry), entry.getName(), extracted);
+    }
+
+    private List<ZipEntry> orderedEntries(ZipFile zip) {
+        List<ZipEntry> entries = Collections.list(zip.entries()).stream()
+                .filter(entry -> !entry.isDirectory())
+                .filter(entry -> !entry.getName().startsWith("__MACOSX/"))
+                .filter(entry -> !entry.getName().substring(entry.getName().lastIndexOf('/') + 1).startsWith("."))
+                .collect(Collectors.toList());
+        entries.sort(Comparator.comparing((ZipEntry entry) -> isPage(entry.getName()))
+                .thenComparing(ZipEntry::getName));
+        return entries;
+    }
+
+    private Map<String, String> assetFileNames(Long jobId, List<ZipEntry> entries) {
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            String name = entries.get(i).getName();
+            if (!isPage(name)) {
+                names.put(name, "import-" + jobId + "-" + i + fileStorageService.extensionOf(name));
+            }
+        }
+        return names;
+    }
+
+    private boolean isPage(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".md") || lower.endsWith(".markdown") || isHtml(name);
+    }
+
+    private boolean isHtml(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".html") || lower.endsWith(".htm");
+    }
+
+    private String firstGroup(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private String truncate(String title) {
+        return title.length() > 255 ? title.substring(0, 255) : title;
+    }
+
+    private byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    // 解压时按实际字节数限制单个条目和整个任务的总量
+    private class LimitedEntryStream extends FilterInputStream {
+        private final String name;
+        private final AtomicLong extracted;
+        private long count;
+
+        LimitedEntryStream(InputStream in, String name, AtomicLong extracted) {
+            super(in);
+            this.name = name;
+            this.extracted = extracted;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                consumed(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consumed(skipped);
+            return skipped;
+        }
+
+        private void consumed(long bytes) throws ArchiveLimitException {
+            count += bytes;
+            if (count > maxEntryBytes) {
+                throw new ArchiveLimitException("Entry " + name + " exceeds " + maxEntryBytes + " bytes");
+            }
+            if (extracted.addAndGet(bytes) > maxTotalBytes) {
+                throw new ArchiveLimitException("Archive expands to more than " + maxTotalBytes + " bytes");
+            }
+        }
+    }
+
+    static class ArchiveLimitException extends IOException {
+        ArchiveLimitException(String message) {
+            super(message);
+        }
+    }
+}
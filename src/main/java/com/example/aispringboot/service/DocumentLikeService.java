@@ -0,0 +1,271 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.DocumentLikeSet;
+import com.example.aispringboot.repository.DocumentLikeSetRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * 点赞：每篇文档在内存中维护点赞用户的 Roaring Bitmap 用于去重，计数增量用 LongAdder 分段累加，
+ * 由定时任务批量写回 documents.like_count 和 document_like_sets，点击本身不会锁数据库行。
+ * 只有修改位图时加写锁，查询用乐观读，不会被同一文档上的其他请求阻塞。
+ * 按单实例设计；多实例部署时同一文档的点赞需要路由到同一实例。
+ */
+@Service
+public class DocumentLikeService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentLikeService.class);
+
+    private static final String FLUSH_COUNT_SQL = "UPDATE documents SET like_count = like_count + ? WHERE id = ?";
+
+    @Value("${app.like.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @Autowired
+    private DocumentLikeSetRepository documentLikeSetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, LikeState> states = new ConcurrentHashMap<>();
+
+    public DocumentLikeService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 点赞，返回是否为新增
+    public boolean like(Long documentId, Long userId) {
+        return mutate(documentId, state -> {
+            if (state.users.contains(userId)) {
+                return false;
+            }
+            state.users.addLong(userId);
+            state.dirty = true;
+            state.delta.increment();
+            return true;
+        });
+    }
+
+    // 取消点赞，返回是否确实取消
+    public boolean unlike(Long documentId, Long userId) {
+        return mutate(documentId, state -> {
+            if (!state.users.contains(userId)) {
+                return false;
+            }
+            state.users.removeLong(userId);
+            state.dirty = true;
+            state.delta.decrement();
+            return true;
+        });
+    }
+
+    // 只读不需要排除淘汰：状态被淘汰前已经没有未写回的修改
+    public boolean hasLiked(Long documentId, Long userId) {
+        return stateOf(documentId).contains(userId);
+    }
+
+    // 尚未写回数据库的计数增量
+    public long pendingDelta(Long documentId) {
+        LikeState state = states.get(documentId);
+        return state != null ? state.delta.sum() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.like.flush-interval-ms:2000}")
+    public void flush() {
+        List<Object[]> countUpdates = new ArrayList<>();
+        List<DocumentLikeSet> snapshots = new ArrayList<>();
+        List<LikeState> flushed = new ArrayList<>();
+
+        for (Map.Entry<Long, LikeState> entry : states.entrySet()) {
+            LikeState state = entry.getValue();
+            long delta;
+            byte[] bitmap = null;
+            // 增量和位图在同一把锁内取出，不会一个算进本轮、一个留到下轮；序列化前的 runOptimize 会改位图，要用写锁
+            long stamp = state.lock.writeLock();
+            try {
+                delta = state.delta.sumThenReset();
+                if (state.dirty) {
+                    bitmap = serialize(state.users);
+                    state.dirty = false;
+                }
+            } finally {
+                state.lock.unlockWrite(stamp);
+            }
+            if (delta != 0) {
+                countUpdates.add(new Object[]{delta, entry.getKey()});
+            }
+            if (bitmap != null) {
+                snapshots.add(new DocumentLikeSet(entry.getKey(), bitmap));
+            }
+            if (delta != 0 || bitmap != null) {
+                state.pendingDelta = delta;
+                flushed.add(state);
+            }
+        }
+
+        if (!flushed.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!countUpdates.isEmpty()) {
+                        jdbcTemplate.batchUpdate(FLUSH_COUNT_SQL, countUpdates);
+                    }
+                    documentLikeSetRepository.saveAll(snapshots);
+                });
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush {} like states, will retry", flushed.size(), e);
+                // 写回失败：把增量加回去，下次重试
+                for (LikeState state : flushed) {
+                    long stamp = state.lock.writeLock();
+                    try {
+                        state.delta.add(state.pendingDelta);
+                        state.dirty = true;
+                    } finally {
+                        state.lock.unlockWrite(stamp);
+                    }
+                }
+                return;
+            }
+            // 计数是绕过 Hibernate 直接更新的，清掉二级缓存里的旧值
+            for (Object[] update : countUpdates) {
+                entityManagerFactory.getCache().evict(Document.class, update[1]);
+            }
+        }
+
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // 在状态锁内移除并标记淘汰，之后拿到这个状态的调用方会重新加载
+    private void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleEvictionMs;
+        for (Map.Entry<Long, LikeState> entry : states.entrySet()) {
+            LikeState state = entry.getValue();
+            long stamp = state.lock.writeLock();
+            try {
+                if (state.lastAccess < threshold && !state.dirty && state.delta.sum() == 0
+                        && states.remove(entry.getKey(), state)) {
+                    state.retired = true;
+                }
+            } finally {
+                state.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // 在写锁内修改；拿到的状态恰好被淘汰时重新获取，修改不会落在已经移出的对象上
+    private <T> T mutate(Long documentId, Function<LikeState, T> action) {
+        while (true) {
+            LikeState state = stateOf(documentId);
+            long stamp = state.lock.writeLock();
+            try {
+                if (!state.retired) {
+                    return action.apply(state);
+                }
+            } finally {
+                state.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private LikeState stateOf(Long documentId) {
+        while (true) {
+            LikeState state = states.computeIfAbsent(documentId, this::load);
+            if (!state.retired) {
+                state.lastAccess = System.currentTimeMillis();
+                return state;
+            }
+        }
+    }
+
+    private LikeState load(Long documentId) {
+        LikeState state = new LikeState();
+        documentLikeSetRepository.findById(documentId)
+                .ifPresent(likeSet -> state.users = deserialize(likeSet.getBitmap()));
+        return state;
+    }
+
+    private byte[] serialize(Roaring64NavigableMap users) {
+        users.runOptimize();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) users.serializedSizeInBytes());
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            users.serialize(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private Roaring64NavigableMap deserialize(byte[] bytes) {
+        Roaring64NavigableMap users = new Roaring64NavigableMap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            users.deserialize(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return users;
+    }
+
+    private static class LikeState {
+        private final StampedLock lock = new StampedLock();
+        private Roaring64NavigableMap users = new Roaring64NavigableMap();
+        private final LongAdder delta = new LongAdder();
+        private boolean dirty;
+        private long pendingDelta;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private volatile boolean retired;
+
+        // 乐观读：期间有写入（或读到写了一半的位图而出错）时退回读锁重读
+        private boolean contains(long userId) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    boolean liked = users.contains(userId);
+                    if (lock.validate(stamp)) {
+                        return liked;
+                    }
+                } catch (RuntimeException e) {
+                    // 与写入交错，下面加读锁重读
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return users.contains(userId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
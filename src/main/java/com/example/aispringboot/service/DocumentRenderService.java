@@ -0,0 +1,150 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.commonmark.Extension;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文档渲染：把存储的 Markdown/HTML 内容转换成清洗过的 HTML，按 (文档ID, 修订号) 缓存。
+ * 内存层按字符数加权淘汰；可选的磁盘层在内存淘汰或重启后仍能复用，同一修订只渲染一次。
+ * 修订号取 updatedAt，文档每次保存都会更新它，旧修订的缓存自然失效。
+ */
+@Service
+public class DocumentRenderService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentRenderService.class);
+
+    // jsoup 校验链接协议时需要一个基准地址，配合 preserveRelativeLinks 保留站内相对链接
+    private static final String SANITIZE_BASE_URI = "http://localhost/";
+
+    @Value("${app.render.cache-max-chars:32000000}")
+    private long cacheMaxChars;
+
+    @Value("${app.render.disk-cache-dir:}")
+    private String diskCacheDir;
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+    private final Safelist safelist;
+
+    private Cache<String, String> cache;
+    private Path diskRoot;
+
+    public DocumentRenderService() {
+        List<Extension> extensions = Collections.singletonList(TablesExtension.create());
+        this.parser = Parser.builder().extensions(extensions).build();
+        this.renderer = HtmlRenderer.builder().extensions(extensions).build();
+        this.safelist = Safelist.relaxed()
+                .addAttributes(":all", "class")
+                .preserveRelativeLinks(true);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxChars)
+                .weigher((String key, String html) -> html.length())
+                .build();
+        if (StringUtils.hasText(diskCacheDir)) {
+            diskRoot = Paths.get(diskCacheDir).toAbsolutePath().normalize();
+            Files.createDirectories(diskRoot);
+        }
+    }
+
+    public String revisionOf(Document document) {
+        if (document.getUpdatedAt() == null) {
+            return "0";
+        }
+        return Long.toString(document.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli(), 36);
+    }
+
+    // 并发请求同一修订时只有一个线程渲染，其余等待结果
+    public String render(Document document) {
+        String revision = revisionOf(document);
+        return cache.get(document.getId() + ":" + revision, key -> load(document, revision));
+    }
+
+    // 文档被彻底删除后清理缓存
+    public void evict(Collection<Long> documentIds) {
+        cache.asMap().keySet().removeIf(key -> documentIds.contains(Long.valueOf(key.substring(0, key.indexOf(':')))));
+        if (diskRoot != null) {
+            for (Long id : documentIds) {
+                try {
+                    FileSystemUtils.deleteRecursively(diskRoot.resolve(id.toString()));
+                } catch (IOException e) {
+                    logger.warn("Failed to remove render cache for document {}", id, e);
+                }
+            }
+        }
+    }
+
+    private String load(Document document, String revision) {
+        Path file = diskRoot != null ? diskRoot.resolve(document.getId().toString()).resolve(revision + ".html") : null;
+        if (file != null && Files.isRegularFile(file)) {
+            try {
+                return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warn("Failed to read render cache {}", file, e);
+            }
+        }
+
+        String html = toSafeHtml(document.getContent());
+        if (file != null) {
+            writeToDisk(file, html);
+        }
+        return html;
+    }
+
+    private String toSafeHtml(String content) {
+        if (!StringUtils.hasText(content)) {
+            return "";
+        }
+        // 以标签开头的按 HTML 处理（导入的 HTML 页面、富文本），其余按 Markdown 渲染
+        String html = content.trim().startsWith("<") ? content : renderer.render(parser.parse(content));
+        return Jsoup.clean(html, SANITIZE_BASE_URI, safelist);
+    }
+
+    // 先写临时文件再原子替换，并删除同一文档的旧修订
+    private void writeToDisk(Path file, String html) {
+        try {
+            Path dir = Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(dir, "render-", ".tmp");
+            Files.write(tmp, html.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.html")) {
+                for (Path old : stream) {
+                    if (!old.equals(file)) {
+                        Files.deleteIfExists(old);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write render cache {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import com.example.aispringboot.storage.ObjectStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 附件下载：按文件名走索引查元数据（带小缓存），支持单段 Range/If-Range，
+ * 容器支持 sendfile 时交给 Tomcat 零拷贝发送，否则用 FileChannel.transferTo 直接写到响应通道。
+ * 存在对象存储上的文件重定向到预签名地址，由客户端直接下载。
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 与 Tomcat DefaultServlet 的 sendfileSize 默认值一致，小文件直接写更划算
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    @Value("${app.download.metadata-cache-size:10000}")
+    private long metadataCacheSize;
+
+    // 缓存按实例独立，evict 只作用于本实例；过期时间就是其他实例上删除、移入回收站后仍可下载的最长时间
+    @Value("${app.download.metadata-cache-ttl-seconds:30}")
+    private long metadataCacheTtlSeconds;
+
+    @Value("${app.download.redirect-to-storage:true}")
+    private boolean redirectDownloads;
+
+    @Value("${app.download.presign-ttl-seconds:300}")
+    private long presignTtlSeconds;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private LocalFileStore localFileStore;
+
+    @Autowired
+    private ObjectStore objectStore;
+
+    private Cache<String, FileMetadata> metadataCache;
+
+    @PostConstruct
+    public void init() {
+        metadataCache = Caffeine.newBuilder()
+                .maximumSize(metadataCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(metadataCacheTtlSeconds))
+                .build();
+    }
+
+    public Optional<FileMetadata> findMetadata(String fileName) {
+        FileMetadata cached = metadataCache.getIfPresent(fileName);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<FileMetadata> metadata = fileRepository.findByFileName(fileName).map(FileMetadata::new);
+        metadata.ifPresent(value -> metadataCache.put(fileName, value));
+        return metadata;
+    }
+
+    public void evict(String fileName) {
+        metadataCache.invalidate(fileName);
+    }
+
+    public void evictAll() {
+        metadataCache.invalidateAll();
+    }
+
+    // 返回 false 表示文件不存在
+    public boolean serve(String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<FileMetadata> metadata = findMetadata(fileName);
+        if (metadata.isPresent() && isMissingLocal(metadata.get().filePath)) {
+            // 缓存的路径可能已被存储迁移替换，重新查一次
+            evict(fileName);
+            metadata = findMetadata(fileName);
+        }
+
+        if (!metadata.isPresent()) {
+            Path path = resolveUnrecorded(fileName);
+            if (path == null || !Files.isRegularFile(path) || !Files.isReadable(path)) {
+                return false;
+            }
+            return serveLocal(path, "application/octet-stream", fileName, request, response);
+        }
+
+        FileMetadata file = metadata.get();
+        if (file.deleted) {
+            return false;
+        }
+        Optional<Path> local = objectStore.localPath(file.filePath);
+        if (local.isPresent()) {
+            if (!Files.isRegularFile(local.get()) || !Files.isReadable(local.get())) {
+                return false;
+            }
+            return serveLocal(local.get(), file.fileType, file.originalName, request, response);
+        }
+        return serveRemote(file, request, response);
+    }
+
+    private boolean serveLocal(Path path, String contentType, String downloadName,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long[] range = prepare(Files.size(path), Files.getLastModifiedTime(path).toMillis(),
+                contentType, downloadName, request, response);
+        if (range == null) {
+            return true;
+        }
+        long start = range[0];
+        long count = range[1] - range[0] + 1;
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return true;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+        return true;
+    }
+
+    // 对象存储上的文件：默认重定向到预签名地址由客户端直连，关闭重定向时按范围读取后转发
+    private boolean serveRemote(FileMetadata file, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (redirectDownloads) {
+            Optional<URI> url = objectStore.presignedDownload(file.filePath, file.originalName, file.fileType,
+                    Duration.ofSeconds(presignTtlSeconds));
+            if (url.isPresent()) {
+                // 签名地址会过期，不能被缓存
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+                response.sendRedirect(url.get().toString());
+                return true;
+            }
+        }
+
+        Optional<ObjectStore.Stat> stat = objectStore.stat(file.filePath);
+        if (!stat.isPresent()) {
+            return false;
+        }
+        long[] range = prepare(stat.get().getSize(), stat.get().getLastModified(),
+                file.fileType, file.originalName, request, response);
+        if (range == null) {
+            return true;
+        }
+        try (InputStream in = objectStore.open(file.filePath, range[0], range[1] - range[0] + 1)) {
+            StreamUtils.copy(in, response.getOutputStream());
+        }
+        return true;
+    }
+
+    /**
+     * 写公共响应头并解析 Range，返回要发送的 [start, end]；
+     * 返回 null 表示响应已经完成（416、HEAD 或空文件），不需要再写内容。
+     */
+    private long[] prepare(long length, long lastModified, String contentType, String downloadName,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(downloadName, StandardCharsets.UTF_8)
+                .build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return null;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return null;
+        }
+        return new long[]{start, end};
+    }
+
+    private boolean isMissingLocal(String location) {
+        Optional<Path> path = objectStore.localPath(location);
+        return path.isPresent() && !Files.isRegularFile(path.get());
+    }
+
+    // 没有记录的文件只兼容旧版平铺在上传目录下的附件；内容寻址的 blob 必须经由文件记录访问，
+    // 否则知道哈希就能绕过文件归属和删除状态直接下载
+    private Path resolveUnrecorded(String fileName) {
+        if (fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0 || storedBlobRepository.existsById(fileName)) {
+            return null;
+        }
+        Path root = localFileStore.root();
+        Path flat = root.resolve(fileName).normalize();
+        return flat.startsWith(root) && !flat.equals(root) ? flat : null;
+    }
+
+    // If-Range 不匹配时忽略 Range，返回完整内容
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date != -1 && lastModified / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // 只支持单段范围；多段范围返回空数组表示按完整内容响应，无法满足时返回 null
+    private long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=")) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) {
+            return new long[0];
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // bytes=-N 表示最后 N 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(length - suffix, 0);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static class FileMetadata {
+        private final String originalName;
+        private final String fileType;
+        private final String filePath;
+        // 已删除的记录也缓存，避免按文件名回退到磁盘上还没回收的内容
+        private final boolean deleted;
+
+        FileMetadata(File file) {
+            this.originalName = file.getOriginalName();
+            this.fileType = file.getFileType();
+            this.filePath = file.getFilePath();
+            this.deleted = Boolean.TRUE.equals(file.getIsDeleted());
+        }
+
+        public String getOriginalName() {
+            return originalName;
+        }
+
+        public String getFileType() {
+            return fileType;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.StoredBlob;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.repository.DocumentCollaboratorRepository;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.storage.ObjectStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * 附件存储：上传接口、分片上传和批量导入共用的落盘与建档逻辑。
+ * 文件内容按 SHA-256 存放在共享的 blob 中，File 记录只是带原始文件名的引用。
+ */
+@Service
+public class FileStorageService {
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private DocumentCollaboratorRepository documentCollaboratorRepository;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private ObjectStore objectStore;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    // 以随机文件名保存
+    public File store(InputStream inputStream, String originalFilename, String contentType,
+                      User user, Document document) throws IOException {
+        return store(inputStream, originalFilename, contentType, user, document,
+                UUID.randomUUID().toString() + extensionOf(originalFilename));
+    }
+
+    // 以指定文件名保存，建档失败时归还 blob 引用
+    public File store(InputStream inputStream, String originalFilename, String contentType,
+                      User user, Document document, String fileName) throws IOException {
+        StoredBlob blob = blobStorageService.store(inputStream);
+        return createFile(blob, fileName, originalFilename, contentType, user, document);
+    }
+
+    // 已经完整写好的临时文件（分片上传完成时使用），内容重复时临时文件直接丢弃
+    public File storeExisting(Path source, String originalFilename, String contentType,
+                              User user, Document document) throws IOException {
+        StoredBlob blob = blobStorageService.store(source);
+        return createFile(blob, UUID.randomUUID().toString() + extensionOf(originalFilename),
+                originalFilename, contentType, user, document);
+    }
+
+    // 引用一个已持有引用的 blob 建档，不写任何数据
+    public File storeBlob(StoredBlob blob, String originalFilename, String contentType,
+                          User user, Document document) {
+        return createFile(blob, UUID.randomUUID().toString() + extensionOf(originalFilename),
+                originalFilename, contentType, user, document);
+    }
+
+    // 记录删除之后调用：共享内容只减少引用计数，早期没有 blob 的文件直接删除物理文件
+    public void releaseContent(File file) throws IOException {
+        if (file.getBlobHash() != null) {
+            blobStorageService.release(file.getBlobHash());
+        } else {
+            objectStore.delete(file.getFilePath());
+            thumbnailService.deleteDerivatives(file.getFileName());
+        }
+    }
+
+    // 文档所有者或有效协作者可以给文档添加附件
+    public boolean hasDocumentAccess(Document document, User user) {
+        if (document.getUser().getId().equals(user.getId())) {
+            return true;
+        }
+        return documentCollaboratorRepository.existsByDocumentAndUserAndIsActiveTrue(document, user);
+    }
+
+    public String extensionOf(String originalFilename) {
+        if (originalFilename != null && originalFilename.contains(".")) {
+            return originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        return "";
+    }
+
+    private File createFile(StoredBlob blob, String fileName, String originalFilename, String contentType,
+                            User user, Document document) {
+        File fileEntity = new File(
+            fileName,
+            originalFilename,
+            contentType != null ? contentType : "application/octet-stream",
+            blob.getSize(),
+            blob.getStoragePath(),
+            "/api/files/download/" + fileName,
+            user,
+            document
+        );
+        fileEntity.setBlobHash(blob.getSha256());
+
+        File saved;
+        try {
+            saved = fileRepository.save(fileEntity);
+        } catch (RuntimeException e) {
+            blobStorageService.release(blob.getSha256());
+            throw e;
+        }
+        quotaService.recordUpload(user.getId(), document != null ? document.getId() : null, blob.getSize());
+        thumbnailService.enqueue(saved);
+        return saved;
+    }
+}
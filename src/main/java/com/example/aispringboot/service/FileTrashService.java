@@ -0,0 +1,136 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.payload.response.BatchItemResult;
+import com.example.aispringboot.repository.FileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 附件删除：请求里只把记录标记为已删除，列表、下载和缩略图立即看不到，不碰磁盘。
+ * 保留期过后由定时任务分批回收：先删除记录，再归还共享内容的引用（引用归零后由 blob 回收任务删除），
+ * 早期没有 blob 的文件直接删除。
+ */
+@Service
+public class FileTrashService {
+    private static final Logger logger = LoggerFactory.getLogger(FileTrashService.class);
+
+    @Value("${app.file-trash.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${app.file-trash.purge-batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.file-trash.purge-max-batches:50}")
+    private int maxBatches;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public FileTrashService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 文件所有者或所属文档的所有者可以删除
+    public List<BatchItemResult> softDelete(Collection<Long> ids, Long userId) {
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        for (Long id : ids) {
+            statuses.put(id, BatchItemResult.NOT_FOUND);
+        }
+        List<Object[]> owned = new ArrayList<>();
+        for (Object[] row : fileRepository.findDeleteCandidates(statuses.keySet())) {
+            Long id = (Long) row[0];
+            Long ownerId = (Long) row[2];
+            Long documentOwnerId = (Long) row[3];
+            if (userId.equals(ownerId) || userId.equals(documentOwnerId)) {
+                owned.add(row);
+            } else {
+                statuses.put(id, BatchItemResult.FORBIDDEN);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            // 只有本次调用真正改动的行才算删除，已被并发请求移入回收站的按不存在处理
+            List<Object[]> flipped = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Object[]> changed = new ArrayList<>();
+                for (Object[] row : owned) {
+                    if (fileRepository.softDeleteById((Long) row[0], now) == 1) {
+                        changed.add(row);
+                    }
+                }
+                return changed;
+            });
+            // 提交之后再清缓存，否则并发下载可能把删除前的状态重新缓存
+            for (Object[] row : flipped) {
+                statuses.put((Long) row[0], BatchItemResult.OK);
+                fileDownloadService.evict((String) row[1]);
+                // 回收站里的文件不再占用配额
+                Long fileSize = (Long) row[4];
+                quotaService.recordDelete((Long) row[2], (Long) row[5], fileSize != null ? fileSize : 0L);
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(statuses.size());
+        statuses.forEach((id, status) -> results.add(BatchItemResult.ofId(id, status)));
+        return results;
+    }
+
+    @Scheduled(fixedDelayString = "${app.file-trash.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        int purged = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<File> files = fileRepository.findExpiredDeleted(cutoff, PageRequest.of(0, batchSize));
+            if (files.isEmpty()) {
+                break;
+            }
+            purge(files);
+            purged += files.size();
+        }
+        if (purged > 0) {
+            logger.info("Purged {} deleted files", purged);
+        }
+    }
+
+    // 记录先删除并提交，再释放内容；释放失败最多留下一个多余的引用，不会误删仍被引用的内容
+    private void purge(List<File> files) {
+        List<Long> ids = files.stream().map(File::getId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> fileRepository.deleteAllByIdInBatch(ids));
+        for (File file : files) {
+            try {
+                fileStorageService.releaseContent(file);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to release content of deleted file {}", file.getId(), e);
+            }
+            fileDownloadService.evict(file.getFileName());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.KnowledgeBase;
+import com.example.aispringboot.entity.KnowledgeBaseNode;
+import com.example.aispringboot.payload.request.KnowledgeBaseNodeRequest;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.example.aispringboot.repository.KnowledgeBaseNodePathRepository;
+import com.example.aispringboot.repository.KnowledgeBaseNodeRepository;
+import com.example.aispringboot.repository.KnowledgeBaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 知识库目录树，基于闭包表：
+ * 整个目录、子树、后代计数各是一条索引查询；移动子树只改动子树与新旧祖先之间的路径行。
+ */
+@Service
+public class KnowledgeBaseService {
+
+    @Autowired
+    private KnowledgeBaseRepository knowledgeBaseRepository;
+
+    @Autowired
+    private KnowledgeBaseNodeRepository nodeRepository;
+
+    @Autowired
+    private KnowledgeBaseNodePathRepository pathRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Transactional(readOnly = true)
+    public KnowledgeBase getReadable(Long knowledgeBaseId, Long userId) {
+        KnowledgeBase knowledgeBase = knowledgeBaseRepository.findById(knowledgeBaseId)
+                .orElseThrow(() -> new RuntimeException("Knowledge base not found"));
+        if (!knowledgeBase.getIsPublic() && !knowledgeBase.getUserId().equals(userId)) {
+            throw new SecurityException("Access denied");
+        }
+        return knowledgeBase;
+    }
+
+    public KnowledgeBase getOwned(Long knowledgeBaseId, Long userId) {
+        KnowledgeBase knowledgeBase = knowledgeBaseRepository.findById(knowledgeBaseId)
+                .orElseThrow(() -> new RuntimeException("Knowledge base not found"));
+        if (!knowledgeBase.getUserId().equals(userId)) {
+            throw new SecurityException("Access denied");
+        }
+        return knowledgeBase;
+    }
+
+    // 整个目录一次查询取出，在内存中组装成树
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTableOfContents(Long knowledgeBaseId, Long userId) {
+        getReadable(knowledgeBaseId, userId);
+
+        List<KnowledgeBaseNode> nodes = nodeRepository.findByKnowledgeBaseIdOrderByParentIdAscSortKeyAsc(knowledgeBaseId);
+        Map<Long, Map<String, Object>> views = new LinkedHashMap<>();
+        for (KnowledgeBaseNode node : nodes) {
+            views.put(node.getId(), toView(node));
+        }
+
+        List<Map<String, Object>> roots = new ArrayList<>();
+        for (KnowledgeBaseNode node : nodes) {
+            Map<String, Object> view = views.get(node.getId());
+            Map<String, Object> parent = node.getParentId() != null ? views.get(node.getParentId()) : null;
+            if (parent == null) {
+                roots.add(view);
+            } else {
+                children(parent).add(view);
+            }
+        }
+        return roots;
+    }
+
+    @Transactional
+    public KnowledgeBaseNode createNode(Long knowledgeBaseId, KnowledgeBaseNodeRequest request, Long userId) {
+        getOwned(knowledgeBaseId, userId);
+        KnowledgeBaseNode parent = request.getParentId() != null ? getNode(request.getParentId(), knowledgeBaseId) : null;
+
+        KnowledgeBaseNode node = new KnowledgeBaseNode();
+        node.setKnowledgeBaseId(knowledgeBaseId);
+        node.setParentId(parent != null ? parent.getId() : null);
+        if (request.getDocumentId() != null) {
+            Document document = documentRepository.findByIdAndIsDeletedFalse(request.getDocumentId())
+                    .orElseThrow(() -> new RuntimeException("Document not found"));
+            if (!document.getUser().getId().equals(userId)) {
+                throw new SecurityException("Access denied to document");
+            }
+            node.setDocumentId(document.getId());
+            node.setTitle(request.getTitle() != null ? request.getTitle() : document.getTitle());
+        } else {
+            node.setTitle(request.getTitle() != null ? request.getTitle() : "未命名分组");
+        }
+        node.setSortKey(sortKeyFor(knowledgeBaseId, node.getParentId(), request.getAfterId(), request.getBeforeId(), null));
+        node = nodeRepository.save(node);
+
+        if (parent != null) {
+            pathRepository.insertPathsForChild(node.getId(), parent.getId());
+        } else {
+            pathRepository.insertSelfPath(node.getId());
+        }
+        return node;
+    }
+
+    @Transactional
+    public KnowledgeBaseNode renameNode(Long nodeId, String title, Long userId) {
+        KnowledgeBaseNode node = nodeRepository.findById(nodeId)
+                .orElseThrow(() -> new RuntimeException("Node not found"));
+        getOwned(node.getKnowledgeBaseId(), userId);
+        node.setTitle(title);
+        return nodeRepository.save(node);
+    }
+
+    // 移动节点（连同子树）到新的父节点和位置；只调整同级顺序时父节点不变，只改一行
+    @Transactional
+    public KnowledgeBaseNode moveNode(Long nodeId, KnowledgeBaseNodeRequest request, Long userId) {
+        KnowledgeBaseNode node = nodeRepository.findById(nodeId)
+                .orElseThrow(() -> new RuntimeException("Node not found"));
+        Long knowledgeBaseId = node.getKnowledgeBaseId();
+        getOwned(knowledgeBaseId, userId);
+
+        Long newParentId = request.getParentId();
+        if (newParentId != null) {
+            getNode(newParentId, knowledgeBaseId);
+            if (pathRepository.existsByAncestorIdAndDescendantId(nodeId, newParentId)) {
+                throw new IllegalArgumentException("Cannot move a node into its own subtree");
+            }
+        }
+
+        if (!Objects.equals(newParentId, node.getParentId())) {
+            List<Long> subtree = pathRepository.findSubtreeIds(nodeId);
+            pathRepository.detachSubtree(subtree);
+            if (newParentId != null) {
+                pathRepository.attachSubtree(nodeId, newParentId);
+            }
+            node.setParentId(newParentId);
+        }
+
+        node.setSortKey(sortKeyFor(knowledgeBaseId, newParentId, request.getAfterId(), request.getBeforeId(), nodeId));
+        return nodeRepository.save(node);
+    }
+
+    @Transactional(readOnly = true)
+    public long countDescendants(Long nodeId, Long userId) {
+        KnowledgeBaseNode node = nodeRepository.findById(nodeId)
+                .orElseThrow(() -> new RuntimeException("Node not found"));
+        getReadable(node.getKnowledgeBaseId(), userId);
+        return pathRepository.countDescendants(nodeId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<KnowledgeBaseNode> getSubtree(Long nodeId, Long userId) {
+        KnowledgeBaseNode node = nodeRepository.findById(nodeId)
+                .orElseThrow(() -> new RuntimeException("Node not found"));
+        getReadable(node.getKnowledgeBaseId(), userId);
+        return nodeRepository.findSubtree(nodeId);
+    }
+
+    // 删除节点及其子树（不删除关联的文档）
+    @Transactional
+    public int deleteNode(Long nodeId, Long userId) {
+        KnowledgeBaseNode node = nodeRepository.findById(nodeId)
+                .orElseThrow(() -> new RuntimeException("Node not found"));
+        getOwned(node.getKnowledgeBaseId(), userId);
+
+        List<Long> subtree = pathRepository.findSubtreeIds(nodeId);
+        pathRepository.deleteByDescendantIdIn(subtree);
+        return nodeRepository.deleteByIdIn(subtree);
+    }
+
+    // 辅助方法：计算插入位置的排序键，键过长时重排该组同级节点
+    private String sortKeyFor(Long knowledgeBaseId, Long parentId, Long afterId, Long beforeId, Long movingId) {
+        String after = null;
+        String before = null;
+        if (afterId != null) {
+            after = getSibling(afterId, knowledgeBaseId, parentId).getSortKey();
+            before = nextSiblingKey(knowledgeBaseId, parentId, after, movingId);
+        } else if (beforeId != null) {
+            before = getSibling(beforeId, knowledgeBaseId, parentId).getSortKey();
+            after = previousSiblingKey(knowledgeBaseId, parentId, before, movingId);
+        } else {
+            after = nodeRepository.findTopByKnowledgeBaseIdAndParentIdOrderBySortKeyDesc(knowledgeBaseId, parentId)
+                    .filter(last -> !last.getId().equals(movingId))
+                    .map(KnowledgeBaseNode::getSortKey)
+                    .orElse(null);
+        }
+
+        String key = SortKeys.between(after, before);
+        if (key.length() <= SortKeys.MAX_LENGTH) {
+            return key;
+        }
+        return rebalance(knowledgeBaseId, parentId, afterId, beforeId, movingId);
+    }
+
+    private String nextSiblingKey(Long knowledgeBaseId, Long parentId, String after, Long movingId) {
+        return firstKeyExcept(nodeRepository.findFirst2ByKnowledgeBaseIdAndParentIdAndSortKeyGreaterThanOrderBySortKeyAsc(
+                knowledgeBaseId, parentId, after), movingId);
+    }
+
+    private String previousSiblingKey(Long knowledgeBaseId, Long parentId, String before, Long movingId) {
+        return firstKeyExcept(nodeRepository.findFirst2ByKnowledgeBaseIdAndParentIdAndSortKeyLessThanOrderBySortKeyDesc(
+                knowledgeBaseId, parentId, before), movingId);
+    }
+
+    private String firstKeyExcept(List<KnowledgeBaseNode> neighbours, Long movingId) {
+        for (KnowledgeBaseNode neighbour : neighbours) {
+            if (!neighbour.getId().equals(movingId)) {
+                return neighbour.getSortKey();
+            }
+        }
+        return null;
+    }
+
+    // 极少发生：重新等距分配同级键，并返回目标位置的键
+    private String rebalance(Long knowledgeBaseId, Long parentId, Long afterId, Long beforeId, Long movingId) {
+        List<KnowledgeBaseNode> siblings = nodeRepository.findByKnowledgeBaseIdAndParentIdOrderBySortKeyAsc(knowledgeBaseId, parentId);
+        siblings.removeIf(sibling -> sibling.getId().equals(movingId));
+
+        int position = siblings.size();
+        for (int i = 0; i < siblings.size(); i++) {
+            Long id = siblings.get(i).getId();
+            if (id.equals(afterId)) {
+                position = i + 1;
+            } else if (id.equals(beforeId)) {
+                position = i;
+            }
+        }
+
+        String[] keys = SortKeys.spread(siblings.size() + 1);
+        int keyIndex = 0;
+        String target = null;
+        for (int i = 0; i <= siblings.size(); i++) {
+            if (i == position) {
+                target = keys[keyIndex++];
+            }
+            if (i < siblings.size()) {
+                siblings.get(i).setSortKey(keys[keyIndex++]);
+            }
+        }
+        nodeRepository.saveAll(siblings);
+        return target;
+    }
+
+    private KnowledgeBaseNode getNode(Long nodeId, Long knowledgeBaseId) {
+        KnowledgeBaseNode node = nodeRepository.findById(nodeId)
+                .orElseThrow(() -> new RuntimeException("Node not found"));
+        if (!node.getKnowledgeBaseId().equals(knowledgeBaseId)) {
+            throw new IllegalArgumentException("Node does not belong to this knowledge base");
+        }
+        return node;
+    }
+
+    private KnowledgeBaseNode getSibling(Long siblingId, Long knowledgeBaseId, Long parentId) {
+        KnowledgeBaseNode sibling = getNode(siblingId, knowledgeBaseId);
+        if (!Objects.equals(sibling.getParentId(), parentId)) {
+            throw new IllegalArgumentException("Reference node is not a sibling");
+        }
+        return sibling;
+    }
+
+    private Map<String, Object> toView(KnowledgeBaseNode node) {
+        Map<String, Object> view = new HashMap<>();
+        view.put("id", node.getId());
+        view.put("title", node.getTitle());
+        view.put("documentId", node.getDocumentId());
+        view.put("parentId", node.getParentId());
+        view.put("sortKey", node.getSortKey());
+        return view;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> children(Map<String, Object> view) {
+        return (List<Map<String, Object>>) view.computeIfAbsent("children", key -> new ArrayList<Map<String, Object>>());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.payload.request.LoginRequest;
+import com.example.aispringboot.payload.response.JwtResponse;
+import com.example.aispringboot.security.jwt.JwtUtils;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 登录校验放在独立的有界线程池里执行，BCrypt 比对不占用 Tomcat 请求线程；
+ * 队列满时立即拒绝，调用方返回 503，登录高峰不会拖慢其他接口。
+ */
+@Service
+public class LoginService {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    // 认证失败时 future 以 AuthenticationException 结束；排队已满时抛出 LoginBusyException
+    public CompletableFuture<JwtResponse> signin(LoginRequest loginRequest) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<JwtResponse> result = new CompletableFuture<>();
+        try {
+            passwordHashExecutor.execute(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    result.complete(authenticate(loginRequest));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    record(startedAt - queuedAt, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejected.incrementAndGet();
+            throw new LoginBusyException("Too many concurrent sign-in requests");
+        }
+        submitted.incrementAndGet();
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        long done = completed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", passwordHashExecutor.getMaxPoolSize());
+        stats.put("active", passwordHashExecutor.getActiveCount());
+        stats.put("queueDepth", passwordHashExecutor.getThreadPoolExecutor().getQueue().size());
+        stats.put("queueRemaining", passwordHashExecutor.getThreadPoolExecutor().getQueue().remainingCapacity());
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", done);
+        stats.put("avgWaitMs", done > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / done) : 0);
+        stats.put("avgHashMs", done > 0 ? TimeUnit.NANOSECONDS.toMillis(totalRunNanos.get() / done) : 0);
+        stats.put("maxLatencyMs", TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+        return stats;
+    }
+
+    // 无状态认证，不写入工作线程的 SecurityContext
+    private JwtResponse authenticate(LoginRequest loginRequest) {
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+        String jwt = jwtUtils.generateJwtToken(authentication);
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+        return new JwtResponse(jwt, userDetails.getId(), userDetails.getUsername(), userDetails.getEmail(), roles);
+    }
+
+    private void record(long waitNanos, long runNanos) {
+        completed.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        totalRunNanos.addAndGet(runNanos);
+        maxLatencyNanos.accumulateAndGet(waitNanos + runNanos, Math::max);
+    }
+
+    public static class LoginBusyException extends RuntimeException {
+        public LoginBusyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.StorageUsage;
+import com.example.aispringboot.repository.StorageUsageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 附件配额：按用户和文档维护字节数、文件数计数，上传和删除时在数据库里原子增减，内存里缓存一份，
+ * 检查配额不需要对 files 表求和。正在上传的字节先预留，并发上传不会一起越过上限。
+ * 计数按 files 表定时校准，修正崩溃或多实例造成的偏差。
+ */
+@Service
+public class QuotaService {
+    private static final Logger logger = LoggerFactory.getLogger(QuotaService.class);
+
+    private static final String USER_USAGE_SQL = "SELECT user_id AS owner_id, COUNT(*) AS files, "
+            + "COALESCE(SUM(file_size), 0) AS bytes FROM files WHERE is_deleted = false GROUP BY user_id";
+
+    private static final String DOCUMENT_USAGE_SQL = "SELECT document_id AS owner_id, COUNT(*) AS files, "
+            + "COALESCE(SUM(file_size), 0) AS bytes FROM files "
+            + "WHERE is_deleted = false AND document_id IS NOT NULL GROUP BY document_id";
+
+    // 0 表示不限制
+    @Value("${app.quota.user-max-bytes:10737418240}")
+    private long userMaxBytes;
+
+    @Value("${app.quota.user-max-files:0}")
+    private long userMaxFiles;
+
+    @Value("${app.quota.document-max-bytes:0}")
+    private long documentMaxBytes;
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 计数单独提交，与调用方的事务无关
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache<String, Usage> usageCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    // 已通过检查、还没有建档的上传字节
+    private final Map<String, Long> reserved = new ConcurrentHashMap<>();
+
+    public QuotaService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // 只检查不预留，用于还不知道确切大小或写入在很久以后的场景
+    public void check(Long userId, Long documentId, long bytes) {
+        reserve(userId, documentId, bytes).close();
+    }
+
+    public boolean hasRoomFor(Long userId, long bytes) {
+        Usage usage = usage(userKey(userId));
+        long pending = reserved.getOrDefault(userKey(userId), 0L);
+        return userMaxBytes <= 0 || usage.bytes.get() + pending + bytes <= userMaxBytes;
+    }
+
+    /**
+     * 预留上传的字节数，超出用户或文档配额时抛出 QuotaExceededException。
+     * 建档后由 recordUpload 计入用量，无论成功与否都要关闭预留。
+     */
+    public Reservation reserve(Long userId, Long documentId, long bytes) {
+        long size = Math.max(bytes, 0);
+        String userKey = userKey(userId);
+        reserveScope(userKey, size, userMaxBytes, userMaxFiles);
+        String documentKey = null;
+        if (documentId != null && documentMaxBytes > 0) {
+            documentKey = documentKey(documentId);
+            try {
+                reserveScope(documentKey, size, documentMaxBytes, 0);
+            } catch (QuotaExceededException e) {
+                unreserve(userKey, size);
+                throw e;
+            }
+        }
+        return new Reservation(userKey, documentKey, size);
+    }
+
+    public void recordUpload(Long userId, Long documentId, long bytes) {
+        apply(userKey(userId), bytes, 1);
+        if (documentId != null) {
+            apply(documentKey(documentId), bytes, 1);
+        }
+    }
+
+    public void recordDelete(Long userId, Long documentId, long bytes) {
+        apply(userKey(userId), -bytes, -1);
+        if (documentId != null) {
+            apply(documentKey(documentId), -bytes, -1);
+        }
+    }
+
+    public Map<String, Object> userUsage(Long userId) {
+        Usage usage = usage(userKey(userId));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bytesUsed", usage.bytes.get());
+        result.put("fileCount", usage.files.get());
+        result.put("maxBytes", userMaxBytes > 0 ? userMaxBytes : null);
+        result.put("maxFiles", userMaxFiles > 0 ? userMaxFiles : null);
+        return result;
+    }
+
+    // 先读计数再求和，计数在这之间变化过的行留到下一轮，避免覆盖并发的增减
+    @Scheduled(cron = "${app.quota.reconcile-cron:0 15 * * * *}")
+    public void reconcile() {
+        Map<String, StorageUsage> seen = new HashMap<>();
+        for (StorageUsage usage : storageUsageRepository.findAll()) {
+            seen.put(usage.getId(), usage);
+        }
+
+        Map<String, long[]> actual = new HashMap<>();
+        collect(actual, USER_USAGE_SQL, "user:");
+        collect(actual, DOCUMENT_USAGE_SQL, "document:");
+
+        Set<String> keys = new HashSet<>(seen.keySet());
+        keys.addAll(actual.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        int corrected = 0;
+        for (String key : keys) {
+            long[] value = actual.getOrDefault(key, new long[2]);
+            StorageUsage current = seen.get(key);
+            if (current == null) {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            storageUsageRepository.insert(key, value[0], value[1], now));
+                    corrected++;
+                } catch (DataIntegrityViolationException e) {
+                    // 刚被上传创建，下一轮再校准
+                }
+            } else if (current.getBytesUsed() != value[0] || current.getFileCount() != value[1]) {
+                Integer updated = transactionTemplate.execute(status -> storageUsageRepository.reconcile(
+                        key, value[0], value[1], current.getBytesUsed(), current.getFileCount(), now));
+                if (updated != null && updated > 0) {
+                    corrected++;
+                }
+            }
+        }
+        usageCache.invalidateAll();
+        if (corrected > 0) {
+            logger.info("Reconciled {} storage usage counters", corrected);
+        }
+    }
+
+    private void reserveScope(String key, long bytes, long maxBytes, long maxFiles) {
+        Usage usage = usage(key);
+        reserved.compute(key, (k, pending) -> {
+            long current = pending != null ? pending : 0L;
+            if (maxBytes > 0 && usage.bytes.get() + current + bytes > maxBytes) {
+                throw new QuotaExceededException("Storage quota exceeded: " + usage.bytes.get() + " of "
+                        + maxBytes + " bytes used");
+            }
+            if (maxFiles > 0 && usage.files.get() + 1 > maxFiles) {
+                throw new QuotaExceededException("File count quota exceeded: " + maxFiles + " files");
+            }
+            return current + bytes;
+        });
+    }
+
+    private void unreserve(String key, long bytes) {
+        reserved.computeIfPresent(key, (k, pending) -> pending - bytes > 0 ? pending - bytes : null);
+    }
+
+    private void apply(String key, long bytes, long files) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (storageUsageRepository.add(key, bytes, files, now) == 0) {
+                try {
+                    storageUsageRepository.insert(key, Math.max(bytes, 0), Math.max(files, 0), now);
+                } catch (DataIntegrityViolationException e) {
+                    // 并发创建了同一行
+                    storageUsageRepository.add(key, bytes, files, now);
+                }
+            }
+        });
+        Usage usage = usageCache.getIfPresent(key);
+        if (usage != null) {
+            usage.bytes.addAndGet(bytes);
+            usage.files.addAndGet(files);
+        }
+    }
+
+    private Usage usage(String key) {
+        return usageCache.get(key, k -> storageUsageRepository.findById(k)
+                .map(row -> new Usage(row.getBytesUsed(), row.getFileCount()))
+                .orElseGet(() -> new Usage(0, 0)));
+    }
+
+    private void collect(Map<String, long[]> actual, String sql, String prefix) {
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql)) {
+            actual.put(prefix + longValue(row, "owner_id"),
+                    new long[]{longValue(row, "bytes"), longValue(row, "files")});
+        }
+    }
+
+    private long longValue(Map<String, Object> row, String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column) && entry.getValue() instanceof Number) {
+                return ((Number) entry.getValue()).longValue();
+            }
+        }
+        return 0;
+    }
+
+    private String userKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    private String documentKey(Long documentId) {
+        return "document:" + documentId;
+    }
+
+    private static class Usage {
+        private final AtomicLong bytes;
+        private final AtomicLong files;
+
+        Usage(long bytes, long files) {
+            this.bytes = new AtomicLong(bytes);
+            this.files = new AtomicLong(files);
+        }
+    }
+
+    public class Reservation implements AutoCloseable {
+        private final String userKey;
+        private final String documentKey;
+        private final long bytes;
+        private boolean closed;
+
+        private Reservation(String userKey, String documentKey, long bytes) {
+            this.userKey = userKey;
+            this.documentKey = documentKey;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unreserve(userKey, bytes);
+            if (documentKey != null) {
+                unreserve(documentKey, bytes);
+            }
+        }
+    }
+
+    public static class QuotaExceededException extends RuntimeException {
+        public QuotaExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.StoredBlob;
+import com.example.aispringboot.entity.UploadSession;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.payload.request.UploadSessionRequest;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.UploadSessionRepository;
+import com.example.aispringboot.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可续传的分片上传（参考 tus 协议）：创建会话时预分配临时文件，每个分片按偏移量用定位写直接写入，
+ * 可选按分片校验摘要，数据落盘后才推进偏移量；写满后校验整体 SHA-256 并移入上传目录建档。
+ * 请求体直接从连接读取，不经过 multipart 缓冲。
+ */
+@Service
+public class ResumableUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.upload.temp-dir:uploads/.partial}")
+    private String tempDir;
+
+    @Value("${app.upload.max-size:10737418240}")
+    private long maxSize;
+
+    @Value("${app.upload.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // 正在写入的会话，同一会话同时只接受一个分片
+    private final Set<String> busySessions = ConcurrentHashMap.newKeySet();
+
+    public ResumableUploadService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public UploadSession create(Long userId, UploadSessionRequest request) throws IOException {
+        if (request.getSize() > maxSize) {
+            throw new IllegalArgumentException("File exceeds maximum upload size of " + maxSize + " bytes");
+        }
+        // 预分配之前先按声明的大小检查配额，完成时再精确预留
+        quotaService.check(userId, request.getDocumentId(), request.getSize());
+
+        Path dir = Paths.get(tempDir);
+        Files.createDirectories(dir);
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setDocumentId(request.getDocumentId());
+        session.setOriginalName(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setUploadLength(request.getSize());
+        session.setSha256(request.getSha256() != null ? request.getSha256().toLowerCase() : null);
+
+        Path temp = dir.resolve(session.getId() + ".part");
+        session.setTempPath(temp.toString());
+
+        // 上传者自己的未删除文件里已有相同内容时直接引用，客户端不需要再传输任何数据。
+        // 客户端声明的哈希没有经过校验，不能凭它引用别人上传的内容
+        if (session.getSha256() != null
+                && fileRepository.existsByUserIdAndBlobHashAndIsDeletedFalse(userId, session.getSha256())) {
+            Optional<StoredBlob> blob = blobStorageService.acquireExisting(session.getSha256());
+            if (blob.isPresent() && blob.get().getSize().equals(request.getSize())) {
+                File file = fileStorageService.storeBlob(blob.get(), session.getOriginalName(),
+                        session.getContentType(), loadUser(userId), loadDocument(session.getDocumentId()));
+                session.setUploadOffset(session.getUploadLength());
+                session.setStatus(UploadSession.COMPLETED);
+                session.setFileId(file.getId());
+                return uploadSessionRepository.save(session);
+            }
+            blob.ifPresent(value -> blobStorageService.release(value.getSha256()));
+        }
+
+        // 预分配到最终大小，分片可以直接按偏移量写入
+        try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+            file.setLength(request.getSize());
+        }
+
+        try {
+            return uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 写入一个分片。offset 必须等于服务端已确认的偏移量；checksumHeader 为 tus 的 Upload-Checksum（"算法 Base64摘要"）。
+     * 写满时完成上传并返回带 fileId 的会话。
+     */
+    public UploadSession appendChunk(UploadSession session, long offset, InputStream body, String checksumHeader)
+            throws IOException {
+        if (!UploadSession.ACTIVE.equals(session.getStatus())) {
+            throw new IllegalStateException("Upload is already completed");
+        }
+        if (offset != session.getUploadOffset()) {
+            throw new IllegalStateException("Upload-Offset mismatch, expected " + session.getUploadOffset());
+        }
+        if (!busySessions.add(session.getId())) {
+            throw new IllegalStateException("Another chunk is being written for this upload");
+        }
+
+        try {
+            MessageDigest digest = null;
+            byte[] expectedChecksum = null;
+            if (checksumHeader != null && !checksumHeader.trim().isEmpty()) {
+                String[] parts = checksumHeader.trim().split("\\s+", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid Upload-Checksum header");
+                }
+                digest = digestOf(parts[0]);
+                expectedChecksum = Base64.getDecoder().decode(parts[1]);
+            }
+
+            long written = writeAt(Paths.get(session.getTempPath()), offset,
+                    session.getUploadLength() - offset, body, digest);
+
+            if (digest != null && !MessageDigest.isEqual(digest.digest(), expectedChecksum)) {
+                // 偏移量不推进，这段数据会被重传的分片覆盖
+                throw new ChecksumMismatchException("Chunk checksum mismatch");
+            }
+
+            long newOffset = offset + written;
+            Integer updated = transactionTemplate.execute(status -> uploadSessionRepository.advanceOffset(
+                    session.getId(), offset, newOffset, LocalDateTime.now()));
+            if (updated == null || updated == 0) {
+                throw new IllegalStateException("Upload offset changed concurrently");
+            }
+            session.setUploadOffset(newOffset);
+
+            if (newOffset == session.getUploadLength()) {
+                complete(session);
+            }
+            return session;
+        } finally {
+            busySessions.remove(session.getId());
+        }
+    }
+
+    public void cancel(UploadSession session) throws IOException {
+        uploadSessionRepository.delete(session);
+        Files.deleteIfExists(Paths.get(session.getTempPath()));
+    }
+
+    // 清理长时间没有进展的会话和临时文件
+    @Scheduled(fixedDelayString = "${app.upload.cleanup-interval-ms:3600000}")
+    public void cleanupExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        for (UploadSession session : uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadSession.ACTIVE, cutoff)) {
+            if (busySessions.contains(session.getId())) {
+                continue;
+            }
+            try {
+                cancel(session);
+            } catch (IOException e) {
+                logger.warn("Failed to remove expired upload {}", session.getId(), e);
+            }
+        }
+    }
+
+    // 从请求体读取至多 remaining 字节，按位置写入临时文件，写完后刷盘
+    private long writeAt(Path temp, long offset, long remaining, InputStream body, MessageDigest digest)
+            throws IOException {
+        ReadableByteChannel source = Channels.newChannel(body);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = offset;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                if (position - offset + buffer.remaining() > remaining) {
+                    throw new IllegalArgumentException("Chunk exceeds Upload-Length");
+                }
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            }
+            channel.force(false);
+        }
+        return position - offset;
+    }
+
+    private void complete(UploadSession session) throws IOException {
+        Path temp = Paths.get(session.getTempPath());
+
+        if (session.getSha256() != null) {
+            MessageDigest digest = digestOf("sha256");
+            try (InputStream in = Files.newInputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            if (!session.getSha256().equals(toHex(digest.digest()))) {
+                // 无法定位坏分片，整个上传作废
+                cancel(session);
+                throw new ChecksumMismatchException("File checksum mismatch, upload discarded");
+            }
+        }
+
+        File file;
+        try (QuotaService.Reservation ignored = quotaService.reserve(session.getUserId(), session.getDocumentId(),
+                session.getUploadLength())) {
+            file = fileStorageService.storeExisting(temp, session.getOriginalName(), session.getContentType(),
+                    loadUser(session.getUserId()), loadDocument(session.getDocumentId()));
+        }
+
+        session.setStatus(UploadSession.COMPLETED);
+        session.setFileId(file.getId());
+        session.setUploadOffset(session.getUploadLength());
+        uploadSessionRepository.save(session);
+    }
+
+    private User loadUser(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalStateException("User not found"));
+    }
+
+    private Document loadDocument(Long documentId) {
+        return documentId != null ? documentRepository.findById(documentId).orElse(null) : null;
+    }
+
+    private MessageDigest digestOf(String algorithm) {
+        String name;
+        switch (algorithm.toLowerCase()) {
+            case "sha256":
+                name = "SHA-256";
+                break;
+            case "sha1":
+                name = "SHA-1";
+                break;
+            case "md5":
+                name = "MD5";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm);
+        }
+        try {
+            return MessageDigest.getInstance(name);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    public static class ChecksumMismatchException extends RuntimeException {
+        public ChecksumMismatchException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.aispringboot.service;
+
+/**
+ * 同级排序键：36 进制小数的字典序表示，任意两个键之间总能生成新键，插入和移动只改一行。
+ * 键不以 '0' 结尾；只使用数字和小写字母，在大小写不敏感的排序规则下顺序也不变。
+ */
+public final class SortKeys {
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    // 超过该长度时应重排同级节点
+    public static final int MAX_LENGTH = 64;
+
+    private SortKeys() {}
+
+    /**
+     * 生成严格位于 before 与 after 之间的键，null 表示无边界。
+     */
+    public static String between(String before, String after) {
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            throw new IllegalArgumentException("Sort key " + before + " is not before " + after);
+        }
+        if (before != null && after == null) {
+            return append(before);
+        }
+        return midpoint(before == null ? "" : before, after);
+    }
+
+    /**
+     * 为 count 个节点生成等距的键，用于重排。
+     */
+    public static String[] spread(int count) {
+        int width = 1;
+        long range = BASE;
+        while (range <= 2L * (count + 1)) {
+            width++;
+            range *= BASE;
+        }
+        long step = range / (count + 1);
+
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder key = new StringBuilder(Long.toString((i + 1) * step, BASE));
+            while (key.length() < width) {
+                key.insert(0, '0');
+            }
+            int end = key.length();
+            while (key.charAt(end - 1) == '0') {
+                end--;
+            }
+            keys[i] = key.substring(0, end);
+        }
+        return keys;
+    }
+
+    // 追加到末尾时只前进一位，让连续追加的键增长得更慢
+    private static String append(String a) {
+        for (int i = 0; i < a.length(); i++) {
+            int digit = DIGITS.indexOf(a.charAt(i));
+            if (digit + 1 < BASE) {
+                return a.substring(0, i) + DIGITS.charAt(digit + 1);
+            }
+        }
+        return a + DIGITS.charAt(1);
+    }
+
+    // 取数位区间的真正中点，b 为 null 时上界视为 BASE；反复在同一位置插入时每个字符能容纳约 5 次二分
+    private static String midpoint(String a, String b) {
+        if (b != null) {
+            // 跳过公共前缀（a 视为右侧补 0）
+            int n = 0;
+            while (n < b.length() && digitAt(a, n) == b.charAt(n)) {
+                n++;
+            }
+            if (n > 0) {
+                return b.substring(0, n) + midpoint(n < a.length() ? a.substring(n) : "", b.substring(n));
+            }
+        }
+
+        int digitA = a.isEmpty() ? 0 : DIGITS.indexOf(a.charAt(0));
+        int digitB = b == null ? BASE : DIGITS.indexOf(b.charAt(0));
+        if (digitB - digitA > 1) {
+            return String.valueOf(DIGITS.charAt((digitA + digitB + 1) / 2));
+        }
+        if (b != null && b.length() > 1) {
+            return b.substring(0, 1);
+        }
+        return DIGITS.charAt(digitA) + midpoint(a.isEmpty() ? "" : a.substring(1), null);
+    }
+
+    private static char digitAt(String key, int index) {
+        return index < key.length() ? key.charAt(index) : '0';
+    }
+}
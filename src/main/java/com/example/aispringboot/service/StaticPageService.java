@@ -0,0 +1,124 @@
+package com.example.aispringboot.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DescriptiveResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 单页应用的 HTML 入口。每个页面只读取一次，把 /css、/js 的引用换成带内容哈希的地址，
+ * 同时压缩好 gzip 版本，之后所有前端路由直接返回内存里的结果，不再逐个请求查找 classpath。
+ */
+@Service
+public class StaticPageService {
+
+    private static final String INDEX = "index.html";
+
+    private static final Set<String> PAGES = Set.of(INDEX, "collaborate.html");
+
+    private static final Pattern ASSET_REFERENCE = Pattern.compile("(href|src)=\"(/(?:css|js)/[^\"?#]+)\"");
+
+    // 资源处理器的配置依赖本服务，这里延迟获取，避免循环依赖
+    @Autowired
+    private ObjectProvider<ResourceUrlProvider> resourceUrlProvider;
+
+    private final Map<String, PageResource> pages = new ConcurrentHashMap<>();
+
+    // 已知页面按名称返回，其余路径都交给首页的前端路由
+    public Resource page(String path) {
+        String name = PAGES.contains(path) ? path : INDEX;
+        PageResource page = pages.get(name);
+        if (page != null) {
+            return page;
+        }
+        ResourceUrlProvider urlProvider = resourceUrlProvider.getObject();
+        page = render(name, urlProvider);
+        // 资源映射在容器刷新完成后才就绪，之前渲染的页面没有指纹，不缓存
+        if (!urlProvider.getHandlerMap().isEmpty()) {
+            pages.putIfAbsent(name, page);
+        }
+        return page;
+    }
+
+    private PageResource render(String name, ResourceUrlProvider urlProvider) {
+        String html;
+        try (InputStream in = new ClassPathResource("static/" + name).getInputStream()) {
+            html = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load page " + name, e);
+        }
+
+        Matcher matcher = ASSET_REFERENCE.matcher(html);
+        StringBuffer rendered = new StringBuffer(html.length());
+        while (matcher.find()) {
+            String versioned = urlProvider.getForLookupPath(matcher.group(2));
+            String url = versioned != null ? versioned : matcher.group(2);
+            matcher.appendReplacement(rendered, Matcher.quoteReplacement(matcher.group(1) + "=\"" + url + "\""));
+        }
+        matcher.appendTail(rendered);
+
+        byte[] content = rendered.toString().getBytes(StandardCharsets.UTF_8);
+        long renderedAt = System.currentTimeMillis();
+        PageResource gzipped = new PageResource(gzip(content), name, renderedAt, null);
+        return new PageResource(content, name, renderedAt, gzipped);
+    }
+
+    private byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // 内存中的页面，压缩版本通过 createRelative(name + ".gz") 交给 EncodedResourceResolver
+    private static class PageResource extends ByteArrayResource {
+        private final String filename;
+        private final long lastModified;
+        private final PageResource gzipped;
+
+        PageResource(byte[] content, String filename, long lastModified, PageResource gzipped) {
+            super(content, "page [" + filename + "]");
+            this.filename = filename;
+            this.lastModified = lastModified;
+            this.gzipped = gzipped;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) {
+            if (gzipped != null && relativePath.equals(filename + ".gz")) {
+                return gzipped;
+            }
+            return new DescriptiveResource(relativePath);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.aispringboot.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 存储迁移和存储巡检互斥运行。迁移会移动、硬链接文件并改写记录里的路径，
+ * 巡检如果拿着迁移前加载的引用判断孤儿，可能删掉刚迁移过去的唯一副本。
+ */
+@Component
+public class StorageMaintenanceLock {
+
+    public static final String MIGRATION = "migration";
+    public static final String SCRUB = "scrub";
+
+    private final AtomicReference<String> holder = new AtomicReference<>();
+
+    // 返回 false 表示已有维护任务在运行
+    public boolean tryAcquire(String task) {
+        return holder.compareAndSet(null, task);
+    }
+
+    public void release(String task) {
+        holder.compareAndSet(task, null);
+    }
+
+    public String holder() {
+        return holder.get();
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在线存储迁移：把平铺在上传目录里的早期文件和旧位置的 blob 搬到分片目录布局。
+ * 每个文件先在新位置建硬链接（跨文件系统时复制），再更新数据库路径，最后删除旧路径，
+ * 迁移过程中下载始终能读到文件，不需要停机。按主键分批，批内并行处理，重复执行是安全的。
+ * 只处理本地后端的文件，已在对象存储上的记录跳过。
+ */
+@Service
+public class StorageMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    @Value("${app.storage.migration-batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private LocalFileStore localFileStore;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    @Qualifier("storageMigrationExecutor")
+    private ThreadPoolTaskExecutor storageMigrationExecutor;
+
+    @Autowired
+    private StorageMaintenanceLock maintenanceLock;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public StorageMigrationService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 返回 false 表示已有迁移或巡检在运行
+    public boolean start() {
+        if (!maintenanceLock.tryAcquire(StorageMaintenanceLock.MIGRATION)) {
+            return false;
+        }
+        running.set(true);
+        migrated.set(0);
+        skipped.set(0);
+        missing.set(0);
+        failed.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+
+        Thread coordinator = new Thread(this::run, "storage-migration");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("maintenanceTask", maintenanceLock.holder());
+        status.put("migrated", migrated.get());
+        status.put("skipped", skipped.get());
+        status.put("missing", missing.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    private void run() {
+        try {
+            migrateLegacyFiles();
+            migrateBlobs();
+            logger.info("Storage migration finished: {}", status());
+        } catch (RuntimeException e) {
+            logger.error("Storage migration aborted", e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+            maintenanceLock.release(StorageMaintenanceLock.MIGRATION);
+        }
+    }
+
+    // 早期上传的文件：每个文件只有一条记录引用，更新后即可删除旧路径
+    private void migrateLegacyFiles() {
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> batch = fileRepository.findLegacyBatch(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                Long id = (Long) row[0];
+                String fileName = (String) row[1];
+                String oldPath = (String) row[2];
+                tasks.add(CompletableFuture.runAsync(() -> migrateLegacyFile(id, fileName, oldPath),
+                        storageMigrationExecutor));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+            afterId = (Long) batch.get(batch.size() - 1)[0];
+        }
+    }
+
+    private void migrateLegacyFile(Long id, String fileName, String oldPath) {
+        if (!localFileStore.localPath(oldPath).isPresent()) {
+            // 已经在对象存储上
+            skipped.incrementAndGet();
+            return;
+        }
+        try {
+            Path source = Paths.get(oldPath).toAbsolutePath().normalize();
+            Path target = localFileStore.pathFor(fileName);
+            if (source.equals(target)) {
+                skipped.incrementAndGet();
+                return;
+            }
+            if (!Files.exists(source)) {
+                if (!Files.exists(target)) {
+                    missing.incrementAndGet();
+                    return;
+                }
+            } else {
+                linkOrCopy(source, target);
+            }
+
+            transactionTemplate.executeWithoutResult(status ->
+                    fileRepository.updateFilePath(id, oldPath, target.toString()));
+            fileDownloadService.evict(fileName);
+            Files.deleteIfExists(source);
+            migrated.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.warn("Failed to migrate file {} ({})", id, oldPath, e);
+        }
+    }
+
+    // blob 可能被并发上传引用，旧路径等全部批次完成、补更新一次记录后再删除
+    private void migrateBlobs() {
+        Queue<String[]> moved = new ConcurrentLinkedQueue<>();
+        String afterHash = "";
+        while (true) {
+            List<Object[]> batch = storedBlobRepository.findBatch(afterHash, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                String sha256 = (String) row[0];
+                String oldPath = (String) row[1];
+                tasks.add(CompletableFuture.runAsync(() -> migrateBlob(sha256, oldPath, moved),
+                        storageMigrationExecutor));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+            afterHash = (String) batch.get(batch.size() - 1)[0];
+        }
+
+        fileDownloadService.evictAll();
+        for (String[] paths : moved) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> fileRepository.replaceFilePath(paths[0], paths[1]));
+                Files.deleteIfExists(Paths.get(paths[0]));
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                logger.warn("Failed to remove old blob path {}", paths[0], e);
+            }
+        }
+    }
+
+    private void migrateBlob(String sha256, String oldPath, Queue<String[]> moved) {
+        if (!localFileStore.localPath(oldPath).isPresent()) {
+            skipped.incrementAndGet();
+            return;
+        }
+        try {
+            Path source = Paths.get(oldPath).toAbsolutePath().normalize();
+            Path target = localFileStore.pathFor(sha256);
+            if (source.equals(target)) {
+                skipped.incrementAndGet();
+                return;
+            }
+            if (!Files.exists(source) && !Files.exists(target)) {
+                missing.incrementAndGet();
+                return;
+            }
+            if (Files.exists(source)) {
+                linkOrCopy(source, target);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                storedBlobRepository.updateStoragePath(sha256, target.toString());
+                fileRepository.updateFilePathByBlobHash(sha256, target.toString());
+            });
+            moved.add(new String[]{oldPath, target.toString()});
+            migrated.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.warn("Failed to migrate blob {} ({})", sha256, oldPath, e);
+        }
+    }
+
+    // 同一文件系统上建硬链接，不复制数据；否则复制到临时文件再原子替换
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+            return;
+        } catch (FileAlreadyExistsException e) {
+            if (Files.size(target) == Files.size(source)) {
+                return;
+            }
+            Files.delete(target);
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.debug("Hard link not possible for {}, copying", source);
+        }
+
+        Path temp = Files.createTempFile(target.getParent(), "migrate-", ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 存储巡检：并行遍历上传目录和数据库里的引用（blob、附件、归档的附件记录、未完成导入的压缩包），两边按路径排序后归并对比，
+ * 找出没有记录的孤儿文件、记录存在但文件丢失的数据，并按 SHA-256 校验 blob 内容。
+ * 所有磁盘读取和删除都计入 I/O 预算限速，可以在生产环境运行；孤儿文件默认只报告不删除，
+ * 删除前逐个回查数据库。与存储迁移互斥运行。
+ * 只检查本地后端，位置在对象存储上的记录跳过。
+ */
+@Service
+public class StorageScrubService {
+    private static final Logger logger = LoggerFactory.getLogger(StorageScrubService.class);
+
+    // 遍历目录、删除文件等元数据操作按固定字节数计入预算
+    private static final long METADATA_COST = 4096;
+
+    // 报告里每类问题最多列出的路径数
+    private static final int MAX_EXAMPLES = 100;
+
+    private static final String ARCHIVED_FILES_SQL = "SELECT id, payload FROM archived_records "
+            + "WHERE source_table = 'files' AND id > ? ORDER BY id LIMIT ?";
+
+    // 未完成的导入任务还要从压缩包继续
+    private static final String IMPORT_ARCHIVES_SQL = "SELECT id, archive_path FROM import_jobs "
+            + "WHERE status <> 'COMPLETED' AND id > ? ORDER BY id LIMIT ?";
+
+    // 删除孤儿前按文件名回查所有引用来源；存量记录里有相对路径，按后缀匹配，误判只会少删
+    private static final String REFERENCE_COUNT_SQL = "SELECT "
+            + "(SELECT COUNT(*) FROM stored_blobs WHERE storage_path LIKE ?) + "
+            + "(SELECT COUNT(*) FROM files WHERE file_path LIKE ?) + "
+            + "(SELECT COUNT(*) FROM import_jobs WHERE archive_path LIKE ?) + "
+            + "(SELECT COUNT(*) FROM archived_records WHERE source_table = 'files' AND payload LIKE ?)";
+
+    @Value("${app.storage.scrub-batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.storage.scrub-io-bytes-per-second:20971520}")
+    private long ioBytesPerSecond;
+
+    // 刚写入还没来得及建档的文件不算孤儿
+    @Value("${app.storage.scrub-orphan-grace-hours:24}")
+    private long orphanGraceHours;
+
+    @Value("${app.storage.scrub-verify-checksums:true}")
+    private boolean verifyChecksums;
+
+    @Value("${app.storage.scrub-remove-orphans:false}")
+    private boolean removeOrphansByDefault;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LocalFileStore localFileStore;
+
+    // 与存储迁移共用 I/O 线程池，两者都是后台维护任务
+    @Autowired
+    @Qualifier("storageMigrationExecutor")
+    private ThreadPoolTaskExecutor storageExecutor;
+
+    @Autowired
+    private StorageMaintenanceLock maintenanceLock;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Report report;
+
+    @Scheduled(cron = "${app.storage.scrub-cron:0 0 4 * * SUN}")
+    public void scheduledScrub() {
+        start(removeOrphansByDefault);
+    }
+
+    // 返回 false 表示已有巡检或迁移在运行
+    public boolean start(boolean removeOrphans) {
+        if (!maintenanceLock.tryAcquire(StorageMaintenanceLock.SCRUB)) {
+            return false;
+        }
+        running.set(true);
+        Report current = new Report(removeOrphans);
+        report = current;
+        Thread worker = new Thread(() -> run(current), "storage-scrub");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> report() {
+        Report current = report;
+        if (current == null) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("running", running.get());
+            map.put("maintenanceTask", maintenanceLock.holder());
+            return map;
+        }
+        return current.toMap(running.get());
+    }
+
+    private void run(Report report) {
+        try {
+            IoBudget budget = new IoBudget(ioBytesPerSecond);
+            CompletableFuture<List<Reference>> references = CompletableFuture.supplyAsync(
+                    () -> loadReferences(report), storageExecutor);
+            List<DiskEntry> disk = walk(localFileStore.root(), budget, report);
+            reconcile(disk, references.join(), budget, report);
+            logger.info("Storage scrub finished: {}", report.toMap(false));
+        } catch (RuntimeException | IOException e) {
+            logger.error("Storage scrub aborted", e);
+            report.error = e.getMessage();
+        } finally {
+            report.finishedAt = LocalDateTime.now();
+            running.set(false);
+            maintenanceLock.release(StorageMaintenanceLock.SCRUB);
+        }
+    }
+
+    // 上传目录下的全部文件，跳过临时文件、派生文件等以 . 开头的目录
+    private List<DiskEntry> walk(Path root, IoBudget budget, Report report) throws IOException {
+        List<DiskEntry> entries = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return entries;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                budget.acquire(METADATA_COST);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    budget.acquire(METADATA_COST);
+                    entries.add(new DiskEntry(file.toAbsolutePath().normalize().toString(), attrs.size(),
+                            attrs.lastModifiedTime().toMillis()));
+                    report.diskFiles.incrementAndGet();
+                    report.diskBytes.addAndGet(attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // 遍历期间被删除
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        entries.sort(Comparator.comparing(entry -> entry.path));
+        return entries;
+    }
+
+    private List<Reference> loadReferences(Report report) {
+        List<Reference> references = new ArrayList<>();
+
+        String afterHash = "";
+        while (true) {
+            List<Object[]> batch = storedBlobRepository.findScrubBatch(afterHash, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Object[] row : batch) {
+                addReference(references, report, (String) row[2], (String) row[0], ((Number) row[1]).longValue());
+            }
+            afterHash = (String) batch.get(batch.size() - 1)[0];
+        }
+
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> batch = fileRepository.findPathBatch(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Object[] row : batch) {
+                addReference(references, report, (String) row[1], null, -1);
+            }
+            afterId = (Long) batch.get(batch.size() - 1)[0];
+        }
+
+        // 归档的附件记录仍然引用原文件，恢复归档数据时需要
+        long afterArchiveId = 0;
+        while (true) {
+            List<Map<String, Object>> batch = jdbcTemplate.queryForList(ARCHIVED_FILES_SQL, afterArchiveId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : batch) {
+                afterArchiveId = ((Number) valueOf(row, "id")).longValue();
+                addReference(references, report, archivedFilePath((String) valueOf(row, "payload")), null, -1);
+            }
+        }
+
+        long afterJobId = 0;
+        while (true) {
+            List<Map<String, Object>> batch = jdbcTemplate.queryForList(IMPORT_ARCHIVES_SQL, afterJobId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : batch) {
+                afterJobId = ((Number) valueOf(row, "id")).longValue();
+                addReference(references, report, (String) valueOf(row, "archive_path"), null, -1);
+            }
+        }
+
+        references.sort(Comparator.comparing(reference -> reference.path));
+        return references;
+    }
+
+    private void addReference(List<Reference> references, Report report, String location, String sha256, long size) {
+        if (location == null) {
+            return;
+        }
+        if (!localFileStore.localPath(location).isPresent()) {
+            report.remoteSkipped.incrementAndGet();
+            return;
+        }
+        references.add(new Reference(Paths.get(location).toAbsolutePath().normalize().toString(), sha256, size));
+    }
+
+    // 两边都按路径排好序，一次归并得到孤儿、丢失和需要校验的文件
+    private void reconcile(List<DiskEntry> disk, List<Reference> references, IoBudget budget, Report report) {
+        report.references.set(references.size());
+        long graceCutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(orphanGraceHours);
+        List<CompletableFuture<Void>> verifications = new ArrayList<>();
+
+        Iterator<DiskEntry> diskIterator = disk.iterator();
+        Iterator<Reference> referenceIterator = references.iterator();
+        DiskEntry file = next(diskIterator);
+        Reference reference = next(referenceIterator);
+        while (file != null || reference != null) {
+            int cmp = file == null ? 1 : reference == null ? -1 : file.path.compareTo(reference.path);
+            if (cmp < 0) {
+                handleOrphan(file, graceCutoff, budget, report);
+                file = next(diskIterator);
+            } else if (cmp > 0) {
+                // 遍历目录之后才写入的文件也会出现在这里，再确认一次
+                if (!Files.exists(Paths.get(reference.path))) {
+                    report.missing.incrementAndGet();
+                    report.example(report.missingExamples, reference.path);
+                }
+                reference = next(referenceIterator);
+            } else {
+                // 同一路径可能同时被 blob 和多条附件记录引用
+                Reference blob = null;
+                while (reference != null && reference.path.equals(file.path)) {
+                    if (reference.sha256 != null) {
+                        blob = reference;
+                    }
+                    reference = next(referenceIterator);
+                }
+                if (blob != null) {
+                    verifications.add(checkBlob(file, blob, budget, report));
+                }
+                file = next(diskIterator);
+            }
+        }
+        CompletableFuture.allOf(verifications.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void handleOrphan(DiskEntry file, long graceCutoff, IoBudget budget, Report report) {
+        if (file.lastModified > graceCutoff) {
+            report.recentUnreferenced.incrementAndGet();
+            return;
+        }
+        report.orphans.incrementAndGet();
+        report.orphanBytes.addAndGet(file.size);
+        report.example(report.orphanExamples, file.path);
+        if (!report.removeOrphans) {
+            return;
+        }
+        // 加载引用之后才建档的文件在这里排除
+        if (stillReferenced(file.path)) {
+            report.orphanRechecked.incrementAndGet();
+            return;
+        }
+        budget.acquire(METADATA_COST);
+        try {
+            if (Files.deleteIfExists(Paths.get(file.path))) {
+                report.orphansRemoved.incrementAndGet();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to remove orphan {}", file.path, e);
+        }
+    }
+
+    private boolean stillReferenced(String path) {
+        String name = Paths.get(path).getFileName().toString();
+        Long count = jdbcTemplate.queryForObject(REFERENCE_COUNT_SQL, Long.class,
+                "%" + name, "%" + name, "%" + name, "%" + name + "%");
+        return count == null || count > 0;
+    }
+
+    private CompletableFuture<Void> checkBlob(DiskEntry file, Reference blob, IoBudget budget, Report report) {
+        if (blob.size >= 0 && blob.size != file.size) {
+            report.corrupt.incrementAndGet();
+            report.example(report.corruptExamples, file.path);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!verifyChecksums) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // 线程池队列满时由当前线程执行，校验任务不会无限堆积
+        return CompletableFuture.runAsync(() -> {
+            try {
+                if (!blob.sha256.equals(sha256Of(Paths.get(file.path), budget, report))) {
+                    report.corrupt.incrementAndGet();
+                    report.example(report.corruptExamples, file.path);
+                    logger.warn("Checksum mismatch for blob {}", blob.sha256);
+                }
+                report.verified.incrementAndGet();
+            } catch (IOException e) {
+                logger.warn("Failed to verify blob {}", blob.sha256, e);
+            }
+        }, storageExecutor);
+    }
+
+    private String sha256Of(Path path, IoBudget budget, Report report) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                budget.acquire(read);
+                report.bytesRead.addAndGet(read);
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    // 归档时按列名写入 JSON，列名大小写取决于数据库
+    private String archivedFilePath(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            Iterator<String> names = node.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (name.equalsIgnoreCase("file_path")) {
+                    return node.get(name).isNull() ? null : node.get(name).asText();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unreadable archived file record", e);
+        }
+        return null;
+    }
+
+    private Object valueOf(Map<String, Object> row, String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private <T> T next(Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    // 按累计消耗和已用时间计算等待时长，平均速率不超过 bytesPerSecond；多个线程共用
+    private static class IoBudget {
+        private final double bytesPerSecond;
+        private final long startNanos = System.nanoTime();
+        private long consumed;
+
+        IoBudget(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        void acquire(long bytes) {
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                consumed += bytes;
+                long dueNanos = startNanos + (long) (consumed / bytesPerSecond * 1_000_000_000L);
+                waitNanos = dueNanos - System.nanoTime();
+            }
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Storage scrub interrupted");
+                }
+            }
+        }
+    }
+
+    private static class DiskEntry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        DiskEntry(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static class Reference {
+        private final String path;
+        private final String sha256;
+        private final long size;
+
+        Reference(String path, String sha256, long size) {
+            this.path = path;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+    }
+
+    private static class Report {
+        private final boolean removeOrphans;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private final AtomicLong diskFiles = new AtomicLong();
+        private final AtomicLong diskBytes = new AtomicLong();
+        private final AtomicLong references = new AtomicLong();
+        private final AtomicLong remoteSkipped = new AtomicLong();
+        private final AtomicLong orphans = new AtomicLong();
+        private final AtomicLong orphanBytes = new AtomicLong();
+        private final AtomicLong orphansRemoved = new AtomicLong();
+        private final AtomicLong orphanRechecked = new AtomicLong();
+        private final AtomicLong recentUnreferenced = new AtomicLong();
+        private final AtomicLong missing = new AtomicLong();
+        private final AtomicLong corrupt = new AtomicLong();
+        private final AtomicLong verified = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final List<String> orphanExamples = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> missingExamples = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> corruptExamples = Collections.synchronizedList(new ArrayList<>());
+
+        Report(boolean removeOrphans) {
+            this.removeOrphans = removeOrphans;
+        }
+
+        void example(List<String> examples, String path) {
+            if (examples.size() < MAX_EXAMPLES) {
+                examples.add(path);
+            }
+        }
+
+        Map<String, Object> toMap(boolean running) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("running", running);
+            map.put("removeOrphans", removeOrphans);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            map.put("diskFiles", diskFiles.get());
+            map.put("diskBytes", diskBytes.get());
+            map.put("references", references.get());
+            map.put("remoteSkipped", remoteSkipped.get());
+            map.put("orphans", orphans.get());
+            map.put("orphanBytes", orphanBytes.get());
+            map.put("orphansRemoved", orphansRemoved.get());
+            map.put("orphanRechecked", orphanRechecked.get());
+            map.put("recentUnreferenced", recentUnreferenced.get());
+            map.put("missing", missing.get());
+            map.put("corrupt", corrupt.get());
+            map.put("verified", verified.get());
+            map.put("bytesRead", bytesRead.get());
+            synchronized (orphanExamples) {
+                map.put("orphanExamples", new ArrayList<>(orphanExamples));
+            }
+            synchronized (missingExamples) {
+                map.put("missingExamples", new ArrayList<>(missingExamples));
+            }
+            synchronized (corruptExamples) {
+                map.put("corruptExamples", new ArrayList<>(corruptExamples));
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.storage.LocalFileStore;
+import com.example.aispringboot.storage.ObjectStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 图片附件的缩略图：上传后提交到有界线程池，一次解码生成全部尺寸，存放在派生目录。
+ * 解码时按目标尺寸做源图降采样，大图不会整张读入内存。队列满或文件早于本功能上传时，
+ * 请求缩略图会在请求线程里按需生成；同一文件同时只生成一次。磁盘缓存按最近访问时间淘汰。
+ */
+@Service
+public class ThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+
+    // 命中的缩略图超过这个时间才更新修改时间，避免每次访问都写元数据
+    private static final long TOUCH_INTERVAL_MS = 60 * 60 * 1000L;
+
+    @Value("${app.thumbnail.sizes:128,256,512}")
+    private int[] sizes;
+
+    @Value("${app.thumbnail.max-decoded-pixels:40000000}")
+    private long maxDecodedPixels;
+
+    @Value("${app.thumbnail.cache-max-bytes:1073741824}")
+    private long cacheMaxBytes;
+
+    @Value("${app.thumbnail.on-demand-timeout-ms:10000}")
+    private long onDemandTimeoutMs;
+
+    @Autowired
+    private LocalFileStore localFileStore;
+
+    @Autowired
+    private ObjectStore objectStore;
+
+    @Autowired
+    @Qualifier("thumbnailExecutor")
+    private ThreadPoolTaskExecutor thumbnailExecutor;
+
+    // 正在生成的文件，按需请求直接等待已有任务
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong onDemand = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private volatile long cacheBytes;
+
+    public boolean supports(File file) {
+        return supports(file.getFileType());
+    }
+
+    public boolean supports(String fileType) {
+        return fileType != null && SUPPORTED_TYPES.contains(fileType.toLowerCase());
+    }
+
+    // 上传完成后调用；队列满时丢弃，之后由按需生成补上
+    public void enqueue(File file) {
+        if (!supports(file)) {
+            return;
+        }
+        String key = keyOf(file);
+        if (Files.exists(pathFor(key, file.getFileType(), largestSize()))) {
+            return;
+        }
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, task) != null) {
+            return;
+        }
+        track(key, task);
+        try {
+            thumbnailExecutor.execute(() -> run(key, file, task));
+            enqueued.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            task.completeExceptionally(e);
+            logger.debug("Thumbnail queue full, {} will be generated on demand", key);
+        }
+    }
+
+    /**
+     * 返回不小于请求尺寸的最小缩略图；不是支持的图片或无法解码时返回空。
+     * 按需生成超时抛出 ThumbnailBusyException。
+     */
+    public Optional<Path> thumbnail(File file, int requestedSize) {
+        if (!supports(file)) {
+            return Optional.empty();
+        }
+        String key = keyOf(file);
+        Path target = pathFor(key, file.getFileType(), snap(requestedSize));
+        if (Files.isRegularFile(target)) {
+            cacheHits.incrementAndGet();
+            touch(target);
+            return Optional.of(target);
+        }
+        cacheMisses.incrementAndGet();
+
+        CompletableFuture<Void> task = inFlight.get(key);
+        if (task == null) {
+            CompletableFuture<Void> own = new CompletableFuture<>();
+            task = inFlight.putIfAbsent(key, own);
+            if (task == null) {
+                onDemand.incrementAndGet();
+                track(key, own);
+                run(key, file, own);
+                task = own;
+            }
+        }
+
+        try {
+            task.get(onDemandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ThumbnailBusyException("Thumbnail is being generated");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThumbnailBusyException("Interrupted while waiting for thumbnail");
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+        return Files.isRegularFile(target) ? Optional.of(target) : Optional.empty();
+    }
+
+    public String contentTypeOf(File file) {
+        return "png".equals(formatOf(file.getFileType())) ? "image/png" : "image/jpeg";
+    }
+
+    // 原件被删除后清理派生文件
+    public void deleteDerivatives(String key) {
+        for (int size : sizes) {
+            for (String format : new String[]{"jpg", "png"}) {
+                try {
+                    Files.deleteIfExists(localFileStore.derivativePathFor(key, "thumb-" + size + "." + format));
+                } catch (IOException e) {
+                    logger.warn("Failed to delete thumbnail {} ({})", key, size, e);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", thumbnailExecutor.getThreadPoolExecutor().getQueue().size());
+        stats.put("active", thumbnailExecutor.getActiveCount());
+        stats.put("inFlight", inFlight.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("rejected", rejected.get());
+        stats.put("onDemand", onDemand.get());
+        stats.put("generated", generated.get());
+        stats.put("failed", failed.get());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("cacheMisses", cacheMisses.get());
+        stats.put("evicted", evicted.get());
+        stats.put("cacheBytes", cacheBytes);
+        return stats;
+    }
+
+    // 超过上限时按修改时间从旧到新删除，降到上限的九成
+    @Scheduled(fixedDelayString = "${app.thumbnail.evict-interval-ms:600000}")
+    public void evictCache() {
+        Path root = localFileStore.derivativeRoot();
+        if (!Files.isDirectory(root)) {
+            cacheBytes = 0;
+            return;
+        }
+
+        List<CachedEntry> entries = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> paths = Files.walk(root)) {
+            Iterator<Path> iterator = paths.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                try {
+                    CachedEntry entry = new CachedEntry(path, Files.size(path),
+                            Files.getLastModifiedTime(path).toMillis());
+                    entries.add(entry);
+                    total += entry.size;
+                } catch (IOException e) {
+                    // 遍历期间被删除
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to scan thumbnail cache", e);
+            return;
+        }
+
+        if (total > cacheMaxBytes) {
+            long goal = cacheMaxBytes / 10 * 9;
+            entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+            for (CachedEntry entry : entries) {
+                if (total <= goal) {
+                    break;
+                }
+                try {
+                    if (Files.deleteIfExists(entry.path)) {
+                        total -= entry.size;
+                        evicted.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    logger.warn("Failed to evict thumbnail {}", entry.path, e);
+                }
+            }
+        }
+        cacheBytes = total;
+    }
+
+    private void track(String key, CompletableFuture<Void> task) {
+        task.whenComplete((result, error) -> inFlight.remove(key, task));
+    }
+
+    private void run(String key, File file, CompletableFuture<Void> task) {
+        try {
+            generate(key, file.getFilePath(), file.getFileType());
+            task.complete(null);
+        } catch (RuntimeException e) {
+            task.completeExceptionally(e);
+        }
+    }
+
+    private void generate(String key, String location, String fileType) {
+        try {
+            BufferedImage image = decode(location);
+            String format = formatOf(fileType);
+            int[] ascending = Arrays.stream(sizes).sorted().toArray();
+            // 从大到小逐级缩放，每一级都以上一级为源
+            for (int i = ascending.length - 1; i >= 0; i--) {
+                image = scale(image, ascending[i], "png".equals(format));
+                write(image, format, pathFor(key, fileType, ascending[i]));
+            }
+            generated.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.warn("Failed to generate thumbnails for {}", location, e);
+            throw e instanceof RuntimeException ? (RuntimeException) e : new UncheckedIOException((IOException) e);
+        }
+    }
+
+    // 对象存储上的原件先下载到本地临时文件，解码需要随机访问
+    private BufferedImage decode(String location) throws IOException {
+        Optional<Path> local = objectStore.localPath(location);
+        if (local.isPresent()) {
+            return decode(local.get());
+        }
+        Path temp = localFileStore.newTempFile("thumbnail-");
+        try {
+            try (InputStream in = objectStore.open(location, 0, -1)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return decode(temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 按最大缩略图的两倍做整数降采样读取，解码后的像素数超过上限时拒绝
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open " + source);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int subsampling = Math.max(1, Math.max(width, height) / (largestSize() * 2));
+                long decodedPixels = (long) (width / subsampling) * (height / subsampling);
+                if (decodedPixels > maxDecodedPixels) {
+                    throw new IOException("Image too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 等比缩放到 size 以内，不放大；每次最多缩小一半，双线性插值下质量接近面积平均
+    private BufferedImage scale(BufferedImage source, int size, boolean keepAlpha) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                if (!keepAlpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth || current.getHeight() > targetHeight);
+        return current;
+    }
+
+    // 先写临时文件再原子替换，读取方不会看到写了一半的图片
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "thumb-", ".tmp");
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("No image writer for " + format);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void touch(Path path) {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - Files.getLastModifiedTime(path).toMillis() > TOUCH_INTERVAL_MS) {
+                Files.setLastModifiedTime(path, FileTime.fromMillis(now));
+            }
+        } catch (IOException e) {
+            // 只影响淘汰顺序
+        }
+    }
+
+    // 相同内容的附件共用缩略图
+    private String keyOf(File file) {
+        return file.getBlobHash() != null ? file.getBlobHash() : file.getFileName();
+    }
+
+    private Path pathFor(String key, String fileType, int size) {
+        return localFileStore.derivativePathFor(key, "thumb-" + size + "." + formatOf(fileType));
+    }
+
+    // PNG 和 GIF 可能带透明通道，输出 PNG；其余输出 JPEG
+    private String formatOf(String fileType) {
+        String type = fileType.toLowerCase();
+        return type.equals("image/png") || type.equals("image/gif") ? "png" : "jpg";
+    }
+
+    private int snap(int requestedSize) {
+        int best = largestSize();
+        for (int size : sizes) {
+            if (size >= requestedSize && size < best) {
+                best = size;
+            }
+        }
+        return best;
+    }
+
+    private int largestSize() {
+        return Arrays.stream(sizes).max().orElse(256);
+    }
+
+    private static class CachedEntry {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        CachedEntry(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    public static class ThumbnailBusyException extends RuntimeException {
+        public ThumbnailBusyException(String message) {
+            super(message);
+        }
+    }
+}
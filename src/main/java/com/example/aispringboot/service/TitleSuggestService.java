@@ -0,0 +1,210 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.payload.response.TitleSuggestion;
+import com.example.aispringboot.repository.DocumentRepository;
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 标题前缀补全：内存中的有序键集合（跳表），键为 "前缀键\0文档ID"，前缀查询即一次范围扫描，不访问数据库。
+ * 每篇文档除小写标题外，中文标题还会生成全拼和首字母两个键。
+ * 公开文档放在公共索引，私有文档放在所有者自己的索引，查询时两边都是调用者可见的，不需要逐条过滤。
+ */
+@Service
+public class TitleSuggestService {
+    private static final Logger logger = LoggerFactory.getLogger(TitleSuggestService.class);
+
+    private static final char SEPARATOR = '\0';
+
+    private static final HanyuPinyinOutputFormat PINYIN_FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        PINYIN_FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        PINYIN_FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        PINYIN_FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    private final NavigableSet<String> publicIndex = new ConcurrentSkipListSet<>();
+
+    private final Map<Long, NavigableSet<String>> privateIndexes = new ConcurrentHashMap<>();
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> rows = documentRepository.findTitleIndexEntries();
+        for (Object[] row : rows) {
+            index((Long) row[0], (String) row[1], (Long) row[2], Boolean.TRUE.equals(row[3]));
+        }
+        logger.info("Loaded {} document titles into the suggest index", rows.size());
+    }
+
+    // 可见范围：公开文档，加上已登录用户自己的文档
+    public List<TitleSuggestion> suggest(String query, Long currentUserId, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> prefixes = new LinkedHashSet<>();
+        prefixes.add(prefix);
+        // 拼音键不含空格，"zhong w" 也能匹配
+        prefixes.add(prefix.replace(" ", ""));
+
+        Map<Long, TitleSuggestion> results = new LinkedHashMap<>();
+        NavigableSet<String> own = currentUserId != null ? privateIndexes.get(currentUserId) : null;
+        for (String p : prefixes) {
+            collect(publicIndex, p, limit, results);
+            if (own != null) {
+                collect(own, p, limit, results);
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    public void index(Document document) {
+        index(document.getId(), document.getTitle(), document.getUser().getId(),
+                Boolean.TRUE.equals(document.getIsPublic()));
+    }
+
+    public synchronized void index(Long id, String title, Long userId, boolean isPublic) {
+        remove(id);
+        if (title == null || title.trim().isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry(title, userId, isPublic, keysOf(title));
+        NavigableSet<String> target = indexOf(entry, true);
+        for (String key : entry.keys) {
+            target.add(key + SEPARATOR + id);
+        }
+        entries.put(id, entry);
+    }
+
+    public synchronized void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        NavigableSet<String> target = indexOf(entry, false);
+        if (target != null) {
+            for (String key : entry.keys) {
+                target.remove(key + SEPARATOR + id);
+            }
+        }
+    }
+
+    public void remove(Collection<Long> ids) {
+        ids.forEach(this::remove);
+    }
+
+    // 只改公开状态时沿用已有标题，在公共索引和私有索引之间移动
+    public synchronized void updateVisibility(Collection<Long> ids, boolean isPublic) {
+        for (Long id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.isPublic != isPublic) {
+                index(id, entry.title, entry.userId, isPublic);
+            }
+        }
+    }
+
+    private void collect(NavigableSet<String> index, String prefix, int limit, Map<Long, TitleSuggestion> results) {
+        for (String key : index.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            if (results.size() >= limit) {
+                return;
+            }
+            Long id = Long.valueOf(key.substring(key.lastIndexOf(SEPARATOR) + 1));
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                results.putIfAbsent(id, new TitleSuggestion(id, entry.title));
+            }
+        }
+    }
+
+    private NavigableSet<String> indexOf(Entry entry, boolean create) {
+        if (entry.isPublic) {
+            return publicIndex;
+        }
+        if (create) {
+            return privateIndexes.computeIfAbsent(entry.userId, key -> new ConcurrentSkipListSet<>());
+        }
+        return privateIndexes.get(entry.userId);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replace(SEPARATOR, ' ');
+    }
+
+    // 小写标题、全拼、首字母；多音字取第一个读音
+    private static Set<String> keysOf(String title) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = normalize(title);
+        keys.add(normalized);
+
+        StringBuilder full = new StringBuilder();
+        StringBuilder initials = new StringBuilder();
+        boolean hasHanzi = false;
+        for (char c : normalized.toCharArray()) {
+            String[] pinyin = null;
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                try {
+                    pinyin = PinyinHelper.toHanyuPinyinStringArray(c, PINYIN_FORMAT);
+                } catch (BadHanyuPinyinOutputFormatCombination e) {
+                    pinyin = null;
+                }
+            }
+            if (pinyin != null && pinyin.length > 0) {
+                hasHanzi = true;
+                full.append(pinyin[0]);
+                initials.append(pinyin[0].charAt(0));
+            } else if (!Character.isWhitespace(c)) {
+                full.append(c);
+                initials.append(c);
+            }
+        }
+        if (hasHanzi) {
+            keys.add(full.toString());
+            keys.add(initials.toString());
+        }
+        return keys;
+    }
+
+    private static class Entry {
+        private final String title;
+        private final Long userId;
+        private final boolean isPublic;
+        private final Set<String> keys;
+
+        Entry(String title, Long userId, boolean isPublic, Set<String> keys) {
+            this.title = title;
+            this.userId = userId;
+            this.isPublic = isPublic;
+            this.keys = keys;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.model.DocumentCollaborator;
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 回收站生命周期：删除后 retention-days 天内可以恢复，过期后由定时任务分批归档（或直接删除）
+ * 文档及其版本、活动、协作者、附件记录，让热表只保留有效数据。
+ */
+@Service
+public class TrashService {
+    private static final Logger logger = LoggerFactory.getLogger(TrashService.class);
+
+    // 子表在前、documents 在最后，保证外键顺序
+    private static final List<String[]> DEPENDENT_TABLES = Arrays.asList(
+            new String[]{"document_versions", "document_id"},
+            new String[]{"document_activities", "document_id"},
+            new String[]{"document_collaborators", "document_id"},
+            new String[]{"files", "document_id"},
+            new String[]{"document_like_sets", "document_id"},
+            new String[]{"documents", "id"}
+    );
+
+    private static final String PURGED_FILES_SQL = "SELECT file_name, file_path, blob_hash, file_size, user_id, "
+            + "document_id, is_deleted FROM files WHERE document_id IN (:ids)";
+
+    private static final String BLOB_REFS_SQL = "SELECT blob_hash, COUNT(*) AS refs FROM files "
+            + "WHERE document_id IN (:ids) AND blob_hash IS NOT NULL GROUP BY blob_hash";
+
+    private static final String RELEASE_BLOB_SQL = "UPDATE stored_blobs SET ref_count = ref_count - ?, updated_at = ? "
+            + "WHERE sha256 = ?";
+
+    // 知识库目录里引用这些文档的节点改成分组，保留标题和子节点
+    private static final String DETACH_KB_NODES_SQL = "UPDATE kb_nodes SET document_id = NULL, updated_at = :now "
+            + "WHERE document_id IN (:ids)";
+
+    private static final String ARCHIVE_SQL = "INSERT INTO archived_records "
+            + "(source_table, record_id, document_id, payload, archived_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Value("${app.trash.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${app.trash.purge-chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.trash.purge-max-chunks:50}")
+    private int maxChunks;
+
+    // archive：归档后删除；delete：直接删除
+    @Value("${app.trash.purge-mode:archive}")
+    private String purgeMode;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DocumentRenderService documentRenderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TrashService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public LocalDateTime restoreDeadline(Document document) {
+        LocalDateTime deletedAt = document.getDeletedAt() != null ? document.getDeletedAt() : document.getUpdatedAt();
+        return deletedAt.plusDays(retentionDays);
+    }
+
+    public boolean isRestorable(Document document) {
+        return LocalDateTime.now().isBefore(restoreDeadline(document));
+    }
+
+    @Scheduled(cron = "${app.trash.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int purged = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<Long> ids = documentRepository.findExpiredTrashIds(cutoff, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Map<String, Object>> files = transactionTemplate.execute(status -> purgeChunk(ids));
+            documentRenderService.evict(ids);
+            evictSecondLevelCache(ids);
+            releaseFiles(files);
+            purged += ids.size();
+        }
+        if (purged > 0) {
+            logger.info("Purged {} expired documents from trash (mode: {})", purged, purgeMode);
+        }
+    }
+
+    // 返回被删除的附件记录，提交后再处理物理文件、配额和下载缓存
+    private List<Map<String, Object>> purgeChunk(List<Long> documentIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", documentIds);
+        boolean archive = !"delete".equalsIgnoreCase(purgeMode);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Map<String, Object>> files = namedParameterJdbcTemplate.queryForList(PURGED_FILES_SQL, params);
+
+        // 归档只保留元数据，两种模式都随记录删除一起归还附件内容的引用
+        List<Object[]> releases = new ArrayList<>();
+        for (Map<String, Object> row : namedParameterJdbcTemplate.queryForList(BLOB_REFS_SQL, params)) {
+            releases.add(new Object[]{longValue(row, "refs"), now, valueOf(row, "blob_hash")});
+        }
+        if (!releases.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE_BLOB_SQL, releases);
+        }
+
+        namedParameterJdbcTemplate.update(DETACH_KB_NODES_SQL, new MapSqlParameterSource("ids", documentIds)
+                .addValue("now", now));
+
+        for (String[] table : DEPENDENT_TABLES) {
+            String where = " FROM " + table[0] + " WHERE " + table[1] + " IN (:ids)";
+            if (archive) {
+                List<Map<String, Object>> rows = namedParameterJdbcTemplate.queryForList("SELECT *" + where, params);
+                if (!rows.isEmpty()) {
+                    List<Object[]> batch = new ArrayList<>(rows.size());
+                    for (Map<String, Object> row : rows) {
+                        batch.add(new Object[]{table[0], longValue(row, "id"), longValue(row, table[1]), toJson(row), now});
+                    }
+                    jdbcTemplate.batchUpdate(ARCHIVE_SQL, batch);
+                }
+            }
+            namedParameterJdbcTemplate.update("DELETE" + where, params);
+        }
+        return files;
+    }
+
+    // 早期没有 blob 的附件删除物理文件；回收站里的附件在移入时已经归还过配额
+    private void releaseFiles(List<Map<String, Object>> files) {
+        for (Map<String, Object> row : files) {
+            String fileName = (String) valueOf(row, "file_name");
+            if (valueOf(row, "blob_hash") == null) {
+                File file = new File();
+                file.setFileName(fileName);
+                file.setFilePath((String) valueOf(row, "file_path"));
+                try {
+                    fileStorageService.releaseContent(file);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to delete content of purged file {}", fileName, e);
+                }
+            }
+            if (!isTrue(valueOf(row, "is_deleted"))) {
+                Long size = longValue(row, "file_size");
+                quotaService.recordDelete(longValue(row, "user_id"), longValue(row, "document_id"),
+                        size != null ? size : 0L);
+            }
+            fileDownloadService.evict(fileName);
+        }
+    }
+
+    // 删除绕过了 Hibernate，清掉二级缓存里这些文档和协作者的旧值
+    private void evictSecondLevelCache(List<Long> documentIds) {
+        for (Long id : documentIds) {
+            entityManagerFactory.getCache().evict(Document.class, id);
+        }
+        entityManagerFactory.getCache().evict(DocumentCollaborator.class);
+    }
+
+    private Object valueOf(Map<String, Object> row, String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private Long longValue(Map<String, Object> row, String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column) && entry.getValue() instanceof Number) {
+                return ((Number) entry.getValue()).longValue();
+            }
+        }
+        return null;
+    }
+
+    private boolean isTrue(Object value) {
+        return Boolean.TRUE.equals(value) || (value instanceof Number && ((Number) value).intValue() != 0);
+    }
+
+    private String toJson(Map<String, Object> row) {
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to archive row " + row.get("id"), e);
+        }
+    }
+}
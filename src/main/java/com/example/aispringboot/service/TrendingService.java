@@ -0,0 +1,303 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.TrendingCheckpoint;
+import com.example.aispringboot.payload.response.TrendingDocument;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.example.aispringboot.repository.TrendingCheckpointRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 热门文档：消费浏览、点赞、编辑事件，按时间窗口维护指数衰减分数，
+ * 定时用大小为 K 的小顶堆选出榜单放在内存中，并定期把分数写入检查点。
+ *
+ * 分数采用前向衰减：事件按 weight * e^((t - landmark) / tau) 累加，同一窗口内所有分数按相同比例衰减，
+ * 不必逐条更新；指数过大时整体缩放并移动基准时间。
+ */
+@Service
+public class TrendingService {
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    public static final String HOUR = "hour";
+    public static final String DAY = "day";
+    public static final String WEEK = "week";
+
+    // 指数超过该值时整体缩放，避免 double 溢出
+    private static final double RESCALE_EXPONENT = 30;
+
+    @Value("${app.trending.top-k:50}")
+    private int topK;
+
+    @Value("${app.trending.min-score:0.05}")
+    private double minScore;
+
+    @Value("${app.trending.view-weight:1}")
+    private double viewWeight;
+
+    @Value("${app.trending.like-weight:5}")
+    private double likeWeight;
+
+    @Value("${app.trending.edit-weight:3}")
+    private double editWeight;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private TrendingCheckpointRepository trendingCheckpointRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+
+    public TrendingService() {
+        windows.put(HOUR, new Window(HOUR, Duration.ofHours(1)));
+        windows.put(DAY, new Window(DAY, Duration.ofDays(1)));
+        windows.put(WEEK, new Window(WEEK, Duration.ofDays(7)));
+    }
+
+    public void recordView(Long documentId) {
+        record(documentId, viewWeight);
+    }
+
+    public void recordLike(Long documentId) {
+        record(documentId, likeWeight);
+    }
+
+    public void recordUnlike(Long documentId) {
+        record(documentId, -likeWeight);
+    }
+
+    public void recordEdit(Long documentId) {
+        record(documentId, editWeight);
+    }
+
+    public boolean hasWindow(String window) {
+        return windows.containsKey(window);
+    }
+
+    // 直接返回内存中的榜单快照
+    public List<TrendingDocument> getTrending(String window, int limit) {
+        List<TrendingDocument> snapshot = windows.get(window).snapshot;
+        return snapshot.size() <= limit ? snapshot : snapshot.subList(0, limit);
+    }
+
+    private void record(Long documentId, double weight) {
+        long now = System.currentTimeMillis();
+        for (Window window : windows.values()) {
+            window.add(documentId, weight, now);
+        }
+    }
+
+    // 重新选出每个窗口的前 K 名，并清理已衰减到阈值以下的文档
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval-ms:10000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        for (Window window : windows.values()) {
+            // 多取一些候选，给已删除或转为私有的文档留出余量
+            Map<Long, Double> candidates = window.top(topK * 2, now);
+            if (candidates.isEmpty()) {
+                window.snapshot = Collections.emptyList();
+                continue;
+            }
+
+            List<TrendingDocument> ranked = new ArrayList<>();
+            for (Document document : documentRepository.findByIdInAndIsDeletedFalse(candidates.keySet())) {
+                if (!Boolean.TRUE.equals(document.getIsPublic())) {
+                    continue;
+                }
+                ranked.add(new TrendingDocument(document.getId(), document.getTitle(), document.getUser().getId(),
+                        document.getViewCount(), document.getLikeCount(), document.getUpdatedAt(),
+                        candidates.get(document.getId())));
+            }
+            ranked.sort(Comparator.comparingDouble(TrendingDocument::getScore).reversed());
+            window.snapshot = Collections.unmodifiableList(ranked.size() > topK ? ranked.subList(0, topK) : ranked);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.checkpoint-interval-ms:60000}",
+            initialDelayString = "${app.trending.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        List<TrendingCheckpoint> checkpoints = new ArrayList<>();
+        for (Window window : windows.values()) {
+            Window.State state = window.copy();
+            try {
+                checkpoints.add(new TrendingCheckpoint(window.name, state.landmark,
+                        objectMapper.writeValueAsString(state.scores)));
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to serialize trending window {}", window.name, e);
+            }
+        }
+        trendingCheckpointRepository.saveAll(checkpoints);
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            logger.error("Failed to checkpoint trending scores on shutdown", e);
+        }
+    }
+
+    // 启动时从检查点恢复分数
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        for (TrendingCheckpoint checkpoint : trendingCheckpointRepository.findAll()) {
+            Window window = windows.get(checkpoint.getWindowName());
+            if (window == null) {
+                continue;
+            }
+            try {
+                Map<Long, Double> scores = objectMapper.readValue(checkpoint.getScores(),
+                        new TypeReference<Map<Long, Double>>() {});
+                window.restore(checkpoint.getLandmarkMillis(), scores);
+                logger.info("Restored {} trending scores for window {}", scores.size(), window.name);
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to restore trending window {}", window.name, e);
+            }
+        }
+        refresh();
+    }
+
+    private class Window {
+        private final String name;
+        private final double tau;
+        private final Map<Long, Double> scores = new ConcurrentHashMap<>();
+        // 累加走读锁（ConcurrentHashMap.merge 本身是原子的），缩放基准时间走写锁
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long landmark = System.currentTimeMillis();
+        private volatile List<TrendingDocument> snapshot = Collections.emptyList();
+
+        Window(String name, Duration halfLife) {
+            this.name = name;
+            this.tau = halfLife.toMillis() / Math.log(2);
+        }
+
+        void add(Long documentId, double weight, long now) {
+            if ((now - landmark) / tau > RESCALE_EXPONENT) {
+                rescale(now);
+            }
+            lock.readLock().lock();
+            try {
+                scores.merge(documentId, weight * Math.exp((now - landmark) / tau), Double::sum);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // 小顶堆选出当前衰减分数最高的 k 篇，返回按分数降序的 id -> 分数
+        Map<Long, Double> top(int k, long now) {
+            PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(k + 1, Map.Entry.comparingByValue());
+            List<Long> expired = new ArrayList<>();
+            double factor;
+
+            lock.readLock().lock();
+            try {
+                factor = Math.exp(-(now - landmark) / tau);
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    double score = entry.getValue() * factor;
+                    if (score < minScore) {
+                        expired.add(entry.getKey());
+                        continue;
+                    }
+                    if (heap.size() < k) {
+                        heap.offer(Map.entry(entry.getKey(), score));
+                    } else if (score > heap.peek().getValue()) {
+                        heap.poll();
+                        heap.offer(Map.entry(entry.getKey(), score));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            lock.writeLock().lock();
+            try {
+                double currentFactor = Math.exp(-(now - landmark) / tau);
+                for (Long id : expired) {
+                    scores.computeIfPresent(id, (key, value) -> value * currentFactor < minScore ? null : value);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Map<Long, Double> result = new LinkedHashMap<>();
+            List<Map.Entry<Long, Double>> sorted = new ArrayList<>(heap);
+            sorted.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+            for (Map.Entry<Long, Double> entry : sorted) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+
+        void rescale(long now) {
+            lock.writeLock().lock();
+            try {
+                if ((now - landmark) / tau <= RESCALE_EXPONENT) {
+                    return;
+                }
+                double factor = Math.exp(-(now - landmark) / tau);
+                scores.replaceAll((id, score) -> score * factor);
+                landmark = now;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        State copy() {
+            lock.readLock().lock();
+            try {
+                return new State(landmark, new HashMap<>(scores));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void restore(long savedLandmark, Map<Long, Double> saved) {
+            lock.writeLock().lock();
+            try {
+                // 把检查点里的分数换算到当前基准时间上，与重启后新产生的事件合并
+                double factor = Math.exp((savedLandmark - landmark) / tau);
+                saved.forEach((id, score) -> scores.merge(id, score * factor, Double::sum));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private class State {
+            private final long landmark;
+            private final Map<Long, Double> scores;
+
+            State(long landmark, Map<Long, Double> scores) {
+                this.landmark = landmark;
+                this.scores = scores;
+            }
+        }
+    }
+}
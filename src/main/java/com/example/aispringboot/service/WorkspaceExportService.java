@@ -0,0 +1,154 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.storage.ObjectStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * 工作区导出：文档和附件逐条从数据库游标读出并直接写入 ZIP 输出流，内存占用与工作区大小无关。
+ */
+@Service
+public class WorkspaceExportService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkspaceExportService.class);
+
+    @Autowired
+    private ObjectStore objectStore;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // MySQL 驱动只有 Integer.MIN_VALUE 才逐行流式读取，其他驱动（如本地 H2）不接受负数，按批读取
+    @Value("${spring.jpa.properties.hibernate.dialect:}")
+    private String dialect;
+
+    @Value("${app.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Transactional(readOnly = true)
+    public void export(Long userId, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        WritableByteChannel zipChannel = Channels.newChannel(zip);
+
+        try (Stream<Document> documents = stream(
+                "SELECT d FROM Document d FETCH ALL PROPERTIES WHERE d.user.id = :userId AND d.isDeleted = false "
+                        + "ORDER BY d.id",
+                Document.class, userId)) {
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                writeDocument(zip, document);
+                // 写完即从持久化上下文中移除，避免一级缓存随导出量增长
+                entityManager.detach(document);
+            }
+        }
+
+        try (Stream<File> files = stream(
+                "SELECT f FROM File f WHERE f.user.id = :userId AND f.isDeleted = false ORDER BY f.id",
+                File.class, userId)) {
+            Iterator<File> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                File file = iterator.next();
+                writeAttachment(zip, zipChannel, file);
+                entityManager.detach(file);
+            }
+        }
+
+        zip.finish();
+        zip.flush();
+    }
+
+    // 抓取大小取决于数据库，不能写死在仓库方法的注解里
+    private <T> Stream<T> stream(String jpql, Class<T> type, Long userId) {
+        int size = dialect.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : fetchSize;
+        return entityManager.createQuery(jpql, type)
+                .setParameter("userId", userId)
+                .setHint(HINT_FETCH_SIZE, size)
+                .setHint(HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    private void writeDocument(ZipOutputStream zip, Document document) throws IOException {
+        zip.putNextEntry(new ZipEntry("documents/" + document.getId() + "-" + safeName(document.getTitle()) + ".md"));
+        StringBuilder header = new StringBuilder();
+        header.append("# ").append(document.getTitle()).append("\n\n");
+        zip.write(header.toString().getBytes(StandardCharsets.UTF_8));
+        if (document.getContent() != null) {
+            zip.write(document.getContent().getBytes(StandardCharsets.UTF_8));
+        }
+        zip.closeEntry();
+    }
+
+    private void writeAttachment(ZipOutputStream zip, WritableByteChannel zipChannel, File file) throws IOException {
+        Optional<Path> local = objectStore.localPath(file.getFilePath());
+        if (!local.isPresent()) {
+            writeRemoteAttachment(zip, file);
+            return;
+        }
+
+        Path path = local.get();
+        if (!Files.isReadable(path)) {
+            logger.warn("Skipping missing attachment {} at {}", file.getId(), path);
+            return;
+        }
+
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            zip.putNextEntry(new ZipEntry("attachments/" + file.getId() + "-" + safeName(file.getOriginalName())));
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                position += source.transferTo(position, size - position, zipChannel);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    // 对象存储上的附件边下载边写入 ZIP
+    private void writeRemoteAttachment(ZipOutputStream zip, File file) throws IOException {
+        if (!objectStore.stat(file.getFilePath()).isPresent()) {
+            logger.warn("Skipping missing attachment {} at {}", file.getId(), file.getFilePath());
+            return;
+        }
+        try (InputStream in = objectStore.open(file.getFilePath(), 0, -1)) {
+            zip.putNextEntry(new ZipEntry("attachments/" + file.getId() + "-" + safeName(file.getOriginalName())));
+            StreamUtils.copy(in, zip);
+            zip.closeEntry();
+        }
+    }
+
+    // 辅助方法：生成 ZIP 内安全的文件名
+    private String safeName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return "untitled";
+        }
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return cleaned.length() > 100 ? cleaned.substring(0, 100) : cleaned;
+    }
+}
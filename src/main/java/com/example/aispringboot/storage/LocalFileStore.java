@@ -0,0 +1,124 @@
+package com.example.aispringboot.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 本地附件存储布局：按 key 分两级目录存放（ab/cd/&lt;key&gt;），避免单个目录下文件过多。
+ * key 本身以十六进制开头（SHA-256、UUID）时直接取前四个字符，否则取 key 的 MD5 前四位。
+ * 临时文件和缩略图等派生文件不论附件后端是什么都放在本地。
+ */
+@Component
+public class LocalFileStore implements ObjectStore {
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-f]{4}.*");
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    public Path root() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    public Path pathFor(String key) {
+        return shard(root(), key).resolve(key);
+    }
+
+    // 派生文件（缩略图等）单独放在 .derived 下，同样分片，可以整体清理而不影响原件
+    public Path derivativePathFor(String key, String variant) {
+        return shard(derivativeRoot(), key).resolve(key + "." + variant);
+    }
+
+    public Path derivativeRoot() {
+        return root().resolve(".derived");
+    }
+
+    @Override
+    public String put(String key, Path source) throws IOException {
+        Path target = pathFor(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target.toString();
+    }
+
+    @Override
+    public Optional<Stat> stat(String location) throws IOException {
+        Path path = Paths.get(location);
+        try {
+            return Optional.of(new Stat(Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream open(String location, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(location), StandardOpenOption.READ);
+        channel.position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new BoundedInputStream(in, length);
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        Files.deleteIfExists(Paths.get(location));
+    }
+
+    @Override
+    public Optional<Path> localPath(String location) {
+        return location.contains("://") ? Optional.empty() : Optional.of(Paths.get(location));
+    }
+
+    @Override
+    public Optional<URI> presignedDownload(String location, String fileName, String contentType, Duration ttl) {
+        return Optional.empty();
+    }
+
+    // 上传过程中的临时文件，与正式文件在同一文件系统上，完成时可以原子移动
+    public Path newTempFile(String prefix) throws IOException {
+        Path dir = root().resolve(".tmp");
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, prefix, ".tmp");
+    }
+
+    private Path shard(Path base, String key) {
+        String shard = HEX_PREFIX.matcher(key).matches() ? key : md5Hex(key);
+        return base.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4));
+    }
+
+    private String md5Hex(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 2; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.aispringboot.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 附件内容的存储后端。数据库里记录 put 返回的位置字符串：本地后端是绝对路径，
+ * 对象存储是 s3://bucket/key，读取和删除都按位置分派，切换后端后旧数据仍可读。
+ */
+public interface ObjectStore {
+
+    // 把已写好的本地文件存为 key，返回位置；成功后源文件不再保留
+    String put(String key, Path source) throws IOException;
+
+    Optional<Stat> stat(String location) throws IOException;
+
+    // 从 offset 开始读取 length 字节，length 为 -1 时读到结尾
+    InputStream open(String location, long offset, long length) throws IOException;
+
+    void delete(String location) throws IOException;
+
+    // 位置在本机文件系统上时返回路径，可以走 sendfile 或直接解码
+    Optional<Path> localPath(String location);
+
+    // 支持直连下载时返回带签名的临时地址，下载流量不经过应用
+    Optional<URI> presignedDownload(String location, String fileName, String contentType, Duration ttl);
+
+    class Stat {
+        private final long size;
+        private final long lastModified;
+
+        public Stat(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,511 @@
+// 全局变量
+let currentUser = null;
+let currentDocument = null;
+let quill = null;
+let documents = [];
+let publicDocuments = [];
+
+// API基础URL
+const API_BASE = '/api';
+
+// 初始化
+document.addEventListener('DOMContentLoaded', function() {
+    checkAuthStatus();
+    setupEventListeners();
+    initializeEditor();
+});
+
+// 检查认证状态
+function checkAuthStatus() {
+    const token = localStorage.getItem('token');
+    if (token) {
+        // 验证token有效性
+        fetch(`${API_BASE}/public/status`, {
+            headers: {
+                'Authorization': `Bearer ${token}`
+            }
+        })
+        .then(response => {
+            if (response.ok) {
+                currentUser = {
+                    token: token,
+                    username: localStorage.getItem('username')
+                };
+                updateUI();
+                loadDocuments();
+            } else {
+                logout();
+            }
+        })
+        .catch(error => {
+            console.error('Auth check failed:', error);
+            logout();
+        });
+    }
+}
+
+// 设置事件监听器
+function setupEventListeners() {
+    // 登录表单
+    document.getElementById('loginForm').addEventListener('submit', function(e) {
+        e.preventDefault();
+        login();
+    });
+
+    // 注册表单
+    document.getElementById('registerForm').addEventListener('submit', function(e) {
+        e.preventDefault();
+        register();
+    });
+
+    // 搜索输入
+    document.getElementById('searchInput').addEventListener('input', function(e) {
+        searchDocuments(e.target.value);
+    });
+
+    // 公开性切换
+    document.getElementById('isPublicToggle').addEventListener('change', function(e) {
+        updateVisibilityBadge(e.target.checked);
+    });
+}
+
+// 初始化编辑器
+function initializeEditor() {
+    const toolbarOptions = [
+        ['bold', 'italic', 'underline', 'strike'],
+        ['blockquote', 'code-block'],
+        [{ 'header': 1 }, { 'header': 2 }],
+        [{ 'list': 'ordered'}, { 'list': 'bullet' }],
+        [{ 'script': 'sub'}, { 'script': 'super' }],
+        [{ 'indent': '-1'}, { 'indent': '+1' }],
+        [{ 'direction': 'rtl' }],
+        [{ 'size': ['small', false, 'large', 'huge'] }],
+        [{ 'header': [1, 2, 3, 4, 5, 6, false] }],
+        [{ 'color': [] }, { 'background': [] }],
+        [{ 'font': [] }],
+        [{ 'align': [] }],
+        ['clean'],
+        ['link', 'image']
+    ];
+
+    quill = new Quill('#editor', {
+        theme: 'snow',
+        modules: {
+            toolbar: toolbarOptions
+        }
+    });
+}
+
+// 更新UI
+function updateUI() {
+    if (currentUser) {
+        document.getElementById('authNavItem').style.display = 'none';
+        document.getElementById('userNavItem').style.display = 'block';
+        document.getElementById('usernameDisplay').textContent = currentUser.username;
+    } else {
+        document.getElementById('authNavItem').style.display = 'block';
+        document.getElementById('userNavItem').style.display = 'none';
+    }
+}
+
+// 显示主页面
+function showMainPage() {
+    document.getElementById('authPage').style.display = 'none';
+    document.getElementById('mainPage').style.display = 'block';
+    if (currentUser) {
+        loadDocuments();
+    }
+}
+
+// 显示认证页面
+function showAuthPage() {
+    document.getElementById('authPage').style.display = 'block';
+    document.getElementById('mainPage').style.display = 'none';
+    showLoginForm();
+}
+
+// 显示登录表单
+function showLoginForm() {
+    document.getElementById('loginForm').style.display = 'block';
+    document.getElementById('registerForm').style.display = 'none';
+    document.getElementById('loginMessage').innerHTML = '';
+}
+
+// 显示注册表单
+function showRegisterForm() {
+    document.getElementById('loginForm').style.display = 'none';
+    document.getElementById('registerForm').style.display = 'block';
+    document.getElementById('registerMessage').innerHTML = '';
+}
+
+// 登录
+function login() {
+    const username = document.getElementById('loginUsername').value;
+    const password = document.getElementById('loginPassword').value;
+
+    fetch(`${API_BASE}/auth/signin`, {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/json'
+        },
+        body: JSON.stringify({ username, password })
+    })
+    .then(response => response.json())
+    .then(data => {
+        if (data.token) {
+            currentUser = {
+                token: data.token,
+                username: data.username
+            };
+            localStorage.setItem('token', data.token);
+            localStorage.setItem('username', data.username);
+            updateUI();
+            showMainPage();
+            loadDocuments();
+        } else {
+            document.getElementById('loginMessage').innerHTML = 
+                `<div class="error-message">${data.message || '登录失败'}</div>`;
+        }
+    })
+    .catch(error => {
+        console.error('Login error:', error);
+        document.getElementById('loginMessage').innerHTML = 
+            '<div class="error-message">登录请求失败</div>';
+    });
+}
+
+// 注册
+function register() {
+    const username = document.getElementById('registerUsername').value;
+    const email = document.getElementById('registerEmail').value;
+    const password = document.getElementById('registerPassword').value;
+
+    fetch(`${API_BASE}/auth/signup`, {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/json'
+        },
+        body: JSON.stringify({ username, email, password })
+    })
+    .then(response => response.json())
+    .then(data => {
+        if (data.message && data.message.includes('successfully')) {
+            document.getElementById('registerMessage').innerHTML = 
+                '<div class="success-message">注册成功！正在跳转到登录页面...</div>';
+            setTimeout(() => {
+                showLoginForm();
+            }, 2000);
+        } else {
+            document.getElementById('registerMessage').innerHTML = 
+                `<div class="error-message">${data.message || '注册失败'}</div>`;
+        }
+    })
+    .catch(error => {
+        console.error('Register error:', error);
+        document.getElementById('registerMessage').innerHTML = 
+            '<div class="error-message">注册请求失败</div>';
+    });
+}
+
+// 退出登录
+function logout() {
+    currentUser = null;
+    localStorage.removeItem('token');
+    localStorage.removeItem('username');
+    updateUI();
+    showAuthPage();
+}
+
+// 加载文档列表
+function loadDocuments() {
+    if (!currentUser) return;
+
+    // 加载我的文档
+    fetch(`${API_BASE}/documents`, {
+        headers: {
+            'Authorization': `Bearer ${currentUser.token}`
+        }
+    })
+    .then(response => response.json())
+    .then(data => {
+        documents = data;
+        renderDocumentList();
+    })
+    .catch(error => console.error('Load documents error:', error));
+
+    // 加载公开文档
+    fetch(`${API_BASE}/documents/public`)
+    .then(response => response.json())
+    .then(data => {
+        publicDocuments = data;
+        renderPublicDocumentList();
+    })
+    .catch(error => console.error('Load public documents error:', error));
+}
+
+// 渲染文档列表
+function renderDocumentList() {
+    const container = document.getElementById('documentList');
+    if (documents.length === 0) {
+        container.innerHTML = '<div class="text-muted text-center">暂无文档</div>';
+        return;
+    }
+
+    container.innerHTML = documents.map(doc => `
+        <div class="document-item" onclick="openDocument(${doc.id})">
+            <div class="document-title">${escapeHtml(doc.title)}</div>
+            <div class="document-meta">
+                <i class="far fa-clock"></i> ${formatDate(doc.updatedAt)}
+                ${doc.isPublic ? '<span class="public-badge">公开</span>' : '<span class="private-badge">私有</span>'}
+            </div>
+        </div>
+    `).join('');
+}
+
+// 渲染公开文档列表
+function renderPublicDocumentList() {
+    const container = document.getElementById('publicDocumentList');
+    if (publicDocuments.length === 0) {
+        container.innerHTML = '<div class="text-muted text-center">暂无公开文档</div>';
+        return;
+    }
+
+    container.innerHTML = publicDocuments.map(doc => `
+        <div class="document-item" onclick="openDocument(${doc.id})">
+            <div class="document-title">${escapeHtml(doc.title)}</div>
+            <div class="document-meta">
+                <i class="far fa-user"></i> ${escapeHtml(doc.user.username)}
+                <i class="far fa-clock"></i> ${formatDate(doc.updatedAt)}
+                <i class="far fa-eye"></i> ${doc.viewCount || 0}
+            </div>
+        </div>
+    `).join('');
+}
+
+// 搜索文档
+function searchDocuments(keyword) {
+    if (!keyword.trim()) {
+        renderDocumentList();
+        renderPublicDocumentList();
+        return;
+    }
+
+    // 搜索我的文档
+    const filteredDocs = documents.filter(doc => 
+        doc.title.toLowerCase().includes(keyword.toLowerCase())
+    );
+    
+    const container = document.getElementById('documentList');
+    if (filteredDocs.length === 0) {
+        container.innerHTML = '<div class="text-muted text-center">未找到相关文档</div>';
+    } else {
+        container.innerHTML = filteredDocs.map(doc => `
+            <div class="document-item" onclick="openDocument(${doc.id})">
+                <div class="document-title">${escapeHtml(doc.title)}</div>
+                <div class="document-meta">
+                    <i class="far fa-clock"></i> ${formatDate(doc.updatedAt)}
+                    ${doc.isPublic ? '<span class="public-badge">公开</span>' : '<span class="private-badge">私有</span>'}
+                </div>
+            </div>
+        `).join('');
+    }
+
+    // 搜索公开文档
+    const filteredPublicDocs = publicDocuments.filter(doc => 
+        doc.title.toLowerCase().includes(keyword.toLowerCase())
+    );
+    
+    const publicContainer = document.getElementById('publicDocumentList');
+    if (filteredPublicDocs.length === 0) {
+        publicContainer.innerHTML = '<div class="text-muted text-center">未找到相关文档</div>';
+    } else {
+        publicContainer.innerHTML = filteredPublicDocs.map(doc => `
+            <div class="document-item" onclick="openDocument(${doc.id})">
+                <div class="document-title">${escapeHtml(doc.title)}</div>
+                <div class="document-meta">
+                    <i class="far fa-user"></i> ${escapeHtml(doc.user.username)}
+                    <i class="far fa-clock"></i> ${formatDate(doc.updatedAt)}
+                    <i class="far fa-eye"></i> ${doc.viewCount || 0}
+                </div>
+            </div>
+        `).join('');
+    }
+}
+
+// 打开文档
+function openDocument(id) {
+    if (!currentUser) {
+        showAuthPage();
+        return;
+    }
+
+    fetch(`${API_BASE}/documents/${id}`, {
+        headers: {
+            'Authorization': `Bearer ${currentUser.token}`
+        }
+    })
+    .then(response => response.json())
+    .then(data => {
+        currentDocument = data;
+        showDocumentEditor();
+    })
+    .catch(error => console.error('Open document error:', error));
+}
+
+// 显示文档编辑器
+function showDocumentEditor() {
+    document.getElementById('welcomePage').style.display = 'none';
+    document.getElementById('documentEditor').style.display = 'block';
+    
+    document.getElementById('documentTitle').value = currentDocument.title;
+    document.getElementById('isPublicToggle').checked = currentDocument.isPublic;
+    updateVisibilityBadge(currentDocument.isPublic);
+    
+    // 设置编辑器内容
+    if (currentDocument.content) {
+        quill.root.innerHTML = currentDocument.content;
+    } else {
+        quill.root.innerHTML = '';
+    }
+}
+
+// 显示新建文档
+function showNewDocument() {
+    if (!currentUser) {
+        showAuthPage();
+        return;
+    }
+
+    currentDocument = {
+        id: null,
+        title: '',
+        content: '',
+        isPublic: false
+    };
+    
+    document.getElementById('welcomePage').style.display = 'none';
+    document.getElementById('documentEditor').style.display = 'block';
+    
+    document.getElementById('documentTitle').value = '';
+    document.getElementById('isPublicToggle').checked = false;
+    updateVisibilityBadge(false);
+    quill.root.innerHTML = '';
+}
+
+// 更新可见性标签
+function updateVisibilityBadge(isPublic) {
+    const badge = document.getElementById('visibilityBadge');
+    if (isPublic) {
+        badge.textContent = '公开';
+        badge.className = 'public-badge';
+    } else {
+        badge.textContent = '私有';
+        badge.className = 'private-badge';
+    }
+}
+
+// 保存文档
+function saveDocument() {
+    if (!currentUser) return;
+
+    const title = document.getElementById('documentTitle').value.trim();
+    if (!title) {
+        document.getElementById('saveMessage').innerHTML = 
+            '<div class="error-message">请输入文档标题</div>';
+        return;
+    }
+
+    const content = quill.root.innerHTML;
+    const isPublic = document.getElementById('isPublicToggle').checked;
+
+    const documentData = {
+        title: title,
+        content: content,
+        isPublic: isPublic
+    };
+
+    const url = currentDocument.id ? 
+        `${API_BASE}/documents/${currentDocument.id}` : 
+        `${API_BASE}/documents`;
+    
+    const method = currentDocument.id ? 'PUT' : 'POST';
+
+    fetch(url, {
+        method: method,
+        headers: {
+            'Content-Type': 'application/json',
+            'Authorization': `Bearer ${currentUser.token}`
+        },
+        body: JSON.stringify(documentData)
+    })
+    .then(response => response.json())
+    .then(data => {
+        currentDocument = data;
+        document.getElementById('saveMessage').innerHTML = 
+            '<div class="success-message">文档保存成功！</div>';
+        loadDocuments(); // 重新加载文档列表
+        setTimeout(() => {
+            document.getElementById('saveMessage').innerHTML = '';
+        }, 3000);
+    })
+    .catch(error => {
+        console.error('Save document error:', error);
+        document.getElementById('saveMessage').innerHTML = 
+            '<div class="error-message">保存失败，请重试</div>';
+    });
+}
+
+// 取消编辑
+function cancelEdit() {
+    currentDocument = null;
+    document.getElementById('documentEditor').style.display = 'none';
+    document.getElementById('welcomePage').style.display = 'block';
+}
+
+// 删除文档
+function deleteDocument() {
+    if (!currentDocument || !currentDocument.id) return;
+
+    if (confirm('确定要删除这个文档吗？此操作不可恢复。')) {
+        fetch(`${API_BASE}/documents/${currentDocument.id}`, {
+            method: 'DELETE',
+            headers: {
+                'Authorization': `Bearer ${currentUser.token}`
+            }
+        })
+        .then(response => response.json())
+        .then(data => {
+            cancelEdit();
+            loadDocuments();
+        })
+        .catch(error => {
+            console.error('Delete document error:', error);
+            alert('删除失败，请重试');
+        });
+    }
+}
+
+// 工具函数
+function escapeHtml(text) {
+    const div = document.createElement('div');
+    div.textContent = text;
+    return div.innerHTML;
+}
+
+function formatDate(dateString) {
+    const date = new Date(dateString);
+    const now = new Date();
+    const diff = now - date;
+    
+    if (diff < 60000) {
+        return '刚刚';
+    } else if (diff < 3600000) {
+        return Math.floor(diff / 60000) + '分钟前';
+    } else if (diff < 86400000) {
+        return Math.floor(diff / 3600000) + '小时前';
+    } else if (diff < 604800000) {
+        return Math.floor(diff / 86400000) + '天前';
+    } else {
+        return date.toLocaleDateString('zh-CN');
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.security.jwt.JwtUtils;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.LoginService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 密码校验线程池和队列都占满时，新的登录立即返回 503，不在请求线程上排队
+class AuthControllerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UserDetailsImpl principal = new UserDetailsImpl(7L, "alice", "alice@example.com", "secret",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(30, TimeUnit.SECONDS);
+            return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        });
+        JwtUtils jwtUtils = mock(JwtUtils.class);
+        when(jwtUtils.generateJwtToken(any())).thenReturn("token");
+
+        passwordHashExecutor = new ThreadPoolTaskExecutor();
+        passwordHashExecutor.setCorePoolSize(1);
+        passwordHashExecutor.setMaxPoolSize(1);
+        passwordHashExecutor.setQueueCapacity(1);
+        passwordHashExecutor.initialize();
+
+        LoginService loginService = new LoginService();
+        ReflectionTestUtils.setField(loginService, "authenticationManager", authenticationManager);
+        ReflectionTestUtils.setField(loginService, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(loginService, "passwordHashExecutor", passwordHashExecutor);
+
+        AuthController controller = new AuthController();
+        ReflectionTestUtils.setField(controller, "loginService", loginService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashExecutor.shutdown();
+    }
+
+    @Test
+    void rejectsWith503WhenHashQueueIsFull() throws Exception {
+        MvcResult running = mockMvc.perform(signin()).andExpect(request().asyncStarted()).andReturn();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        MvcResult queued = mockMvc.perform(signin()).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(signin()).andExpect(request().asyncStarted())
+                .andDo(result -> mockMvc.perform(asyncDispatch(result))
+                        .andExpect(status().isServiceUnavailable())
+                        .andExpect(header().string("Retry-After", "1")));
+
+        release.countDown();
+        for (MvcResult result : new MvcResult[]{running, queued}) {
+            result.getAsyncResult(10_000);
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.accessToken").value("token"));
+        }
+    }
+
+    private MockHttpServletRequestBuilder signin() {
+        return post("/api/auth/signin").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"alice\",\"password\":\"secret\"}");
+    }
+}
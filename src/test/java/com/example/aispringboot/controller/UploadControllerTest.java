@@ -0,0 +1,226 @@
+package com.example.aispringboot.controller;
+
+import com.example.aispringboot.entity.UploadSession;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.UploadSessionRepository;
+import com.example.aispringboot.repository.UserRepository;
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import com.example.aispringboot.service.BlobStorageService;
+import com.example.aispringboot.service.FileStorageService;
+import com.example.aispringboot.service.QuotaService;
+import com.example.aispringboot.service.ResumableUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 按 tus 流程走一遍分片上传：创建、按偏移量追加、HEAD 查进度、校验失败 460、写满后建档
+class UploadControllerTest {
+
+    private static final long USER_ID = 7L;
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicReference<byte[]> stored = new AtomicReference<>();
+
+    private FileStorageService fileStorageService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+        when(uploadSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            sessions.put(session.getId(), session);
+            return session;
+        });
+        when(uploadSessionRepository.findByIdAndUserId(anyString(), eq(USER_ID)))
+                .thenAnswer(invocation -> Optional.ofNullable(sessions.get(invocation.<String>getArgument(0))));
+        when(uploadSessionRepository.advanceOffset(anyString(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            UploadSession session = sessions.get(invocation.<String>getArgument(0));
+            if (session == null || !session.getUploadOffset().equals(invocation.getArgument(1))) {
+                return 0;
+            }
+            session.setUploadOffset(invocation.getArgument(2));
+            return 1;
+        });
+
+        User user = new User("alice", "alice@example.com", "secret");
+        user.setId(USER_ID);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        fileStorageService = mock(FileStorageService.class);
+        when(fileStorageService.storeExisting(any(Path.class), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            stored.set(Files.readAllBytes(invocation.<Path>getArgument(0)));
+            File file = new File();
+            file.setId(42L);
+            return file;
+        });
+
+        ResumableUploadService uploadService = new ResumableUploadService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(uploadService, "tempDir", tempDir.toString());
+        ReflectionTestUtils.setField(uploadService, "maxSize", 1024L);
+        ReflectionTestUtils.setField(uploadService, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(uploadService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(uploadService, "documentRepository", mock(DocumentRepository.class));
+        ReflectionTestUtils.setField(uploadService, "fileRepository", mock(FileRepository.class));
+        ReflectionTestUtils.setField(uploadService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(uploadService, "blobStorageService", mock(BlobStorageService.class));
+        ReflectionTestUtils.setField(uploadService, "quotaService", mock(QuotaService.class));
+
+        UploadController controller = new UploadController();
+        ReflectionTestUtils.setField(controller, "resumableUploadService", uploadService);
+        ReflectionTestUtils.setField(controller, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        ReflectionTestUtils.setField(controller, "documentRepository", mock(DocumentRepository.class));
+        ReflectionTestUtils.setField(controller, "fileStorageService", fileStorageService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void uploadsInChunksAndCompletes() throws Exception {
+        String id = create(hex(digest("SHA-256", CONTENT)));
+
+        expectOffset(id, 0);
+        mockMvc.perform(chunk(id, 0, 0, 10)).andExpect(status().isNoContent())
+                .andExpect(header().string("Upload-Offset", "10"));
+        expectOffset(id, 10);
+
+        // 偏移量与服务端不一致的分片被拒绝，进度不变
+        mockMvc.perform(chunk(id, 20, 20, 30)).andExpect(status().isConflict());
+        expectOffset(id, 10);
+
+        mockMvc.perform(chunk(id, 10, 10, 25)).andExpect(status().isNoContent())
+                .andExpect(header().string("Upload-Offset", "25"));
+        mockMvc.perform(chunk(id, 25, 25, CONTENT.length))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", String.valueOf(CONTENT.length)))
+                .andExpect(jsonPath("$.status").value(UploadSession.COMPLETED))
+                .andExpect(jsonPath("$.fileId").value(42));
+
+        assertArrayEquals(CONTENT, stored.get());
+        assertEquals(UploadSession.COMPLETED, sessions.get(id).getStatus());
+        // 已完成的上传不再接受分片
+        mockMvc.perform(chunk(id, CONTENT.length, 0, 1)).andExpect(status().isConflict());
+    }
+
+    @Test
+    void chunkChecksumMismatchKeepsOffsetAndAllowsRetry() throws Exception {
+        String id = create(null);
+        mockMvc.perform(chunk(id, 0, 0, 16)).andExpect(status().isNoContent());
+
+        byte[] wrong = "not the chunk".getBytes(StandardCharsets.US_ASCII);
+        mockMvc.perform(chunk(id, 16, 16, 26)
+                        .header("Upload-Checksum", "sha1 " + Base64.getEncoder().encodeToString(digest("SHA-1", wrong))))
+                .andExpect(status().is(460));
+        expectOffset(id, 16);
+
+        byte[] rest = Arrays.copyOfRange(CONTENT, 16, CONTENT.length);
+        mockMvc.perform(chunk(id, 16, 16, CONTENT.length)
+                        .header("Upload-Checksum", "sha1 " + Base64.getEncoder().encodeToString(digest("SHA-1", rest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(UploadSession.COMPLETED));
+        assertArrayEquals(CONTENT, stored.get());
+    }
+
+    @Test
+    void wholeFileChecksumMismatchDiscardsUpload() throws Exception {
+        byte[] other = CONTENT.clone();
+        other[0] = 'X';
+        String id = create(hex(digest("SHA-256", other)));
+        Path temp = Paths.get(sessions.get(id).getTempPath());
+
+        mockMvc.perform(chunk(id, 0, 0, CONTENT.length)).andExpect(status().is(460));
+
+        verify(fileStorageService, never()).storeExisting(any(Path.class), anyString(), any(), any(), any());
+        assertFalse(Files.exists(temp));
+    }
+
+    private String create(String sha256) throws Exception {
+        String body = "{\"fileName\":\"notes.txt\",\"contentType\":\"text/plain\",\"size\":" + CONTENT.length
+                + (sha256 != null ? ",\"sha256\":\"" + sha256 + "\"" : "") + "}";
+        String location = mockMvc.perform(post("/api/uploads").principal(authentication())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Upload-Offset", "0"))
+                .andExpect(header().string("Upload-Length", String.valueOf(CONTENT.length)))
+                .andReturn().getResponse().getHeader("Location");
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+
+    private void expectOffset(String id, long expectedOffset) throws Exception {
+        mockMvc.perform(head("/api/uploads/" + id).principal(authentication()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", String.valueOf(expectedOffset)));
+    }
+
+    private MockHttpServletRequestBuilder chunk(String id, long offset, int from, int to) {
+        return patch("/api/uploads/" + id).principal(authentication())
+                .header("Upload-Offset", offset)
+                .contentType("application/offset+octet-stream")
+                .content(Arrays.copyOfRange(CONTENT, from, to));
+    }
+
+    private UsernamePasswordAuthenticationToken authentication() {
+        UserDetailsImpl principal = new UserDetailsImpl(USER_ID, "alice", "alice@example.com", "secret",
+                Collections.emptyList());
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) throws Exception {
+        return MessageDigest.getInstance(algorithm).digest(content);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
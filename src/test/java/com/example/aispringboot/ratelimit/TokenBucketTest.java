@@ -0,0 +1,78 @@
+package com.example.aispringboot.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GCRA 令牌桶：初始可以突发取满容量，之后按速率补充，并发下不会多发令牌
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstUpToCapacityThenRefills() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(limit(5, 10));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(), "token " + i);
+        }
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(100), "wait " + wait);
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(wait) + 20);
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws Exception {
+        // 一天补一个令牌，测试期间只有初始容量可用
+        TokenBucket bucket = new TokenBucket(limit(100, 0));
+        int threads = 8;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        if (bucket.tryAcquire() == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void zeroRefillRateFallsBackToOneTokenPerDay() {
+        assertEquals(TimeUnit.DAYS.toNanos(1), TokenBucket.intervalNanos(limit(1, 0)), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, double refillPerSecond) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.aispringboot.security.jwt;
+
+import com.example.aispringboot.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// 令牌自带用户信息，校验结果按令牌缓存，缓存命中也不能越过令牌的过期时间
+class JwtUtilsTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = jwtUtils(60_000);
+    }
+
+    @Test
+    void verifiedTokenCarriesPrincipalAndIsCached() {
+        String token = jwtUtils.generateJwtToken(authentication());
+
+        JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+
+        assertNotNull(verified);
+        UserDetailsImpl principal = verified.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals("alice@example.com", principal.getEmail());
+        assertEquals(Arrays.asList("ROLE_USER", "ROLE_ADMIN"), principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
+        assertSame(verified, jwtUtils.verify(token));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = jwtUtils.generateJwtToken(authentication());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwtUtils.verify(tampered));
+    }
+
+    @Test
+    void cachedTokenStopsVerifyingOnceExpired() throws InterruptedException {
+        // 缓存时间比令牌有效期长，只能靠缓存项里的过期时间拦住
+        JwtUtils shortLived = jwtUtils(2_000);
+        String token = shortLived.generateJwtToken(authentication());
+        assertNotNull(shortLived.verify(token));
+
+        Thread.sleep(2_100);
+
+        assertNull(shortLived.verify(token));
+        assertNull(shortLived.verify(token));
+    }
+
+    @Test
+    void legacyTokenWithoutUserIdHasNoPrincipal() {
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+
+        assertNotNull(verified);
+        assertEquals("alice", verified.getUsername());
+        assertNull(verified.getPrincipal());
+    }
+
+    private static JwtUtils jwtUtils(int expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheSeconds", 60L);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheSize", 100L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication() {
+        UserDetailsImpl principal = new UserDetailsImpl(7L, "alice", "alice@example.com", "secret",
+                Arrays.asList(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+        return new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+    }
+}
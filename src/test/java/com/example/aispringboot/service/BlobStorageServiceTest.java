@@ -0,0 +1,155 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.StoredBlob;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 内容寻址存储：相同内容只存一份并累加引用，引用归零且过了宽限期才回收
+class BlobStorageServiceTest {
+
+    private static final byte[] CONTENT = "same attachment".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploadDir;
+
+    private final Map<String, StoredBlob> blobs = new ConcurrentHashMap<>();
+
+    private ThumbnailService thumbnailService;
+    private BlobStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        StoredBlobRepository repository = mock(StoredBlobRepository.class);
+        when(repository.incrementRefCount(anyString(), any())).thenAnswer(invocation -> {
+            StoredBlob blob = blobs.get(invocation.<String>getArgument(0));
+            if (blob == null) {
+                return 0;
+            }
+            blob.setRefCount(blob.getRefCount() + 1);
+            blob.setUpdatedAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(repository.decrementRefCount(anyString(), any())).thenAnswer(invocation -> {
+            StoredBlob blob = blobs.get(invocation.<String>getArgument(0));
+            if (blob == null || blob.getRefCount() <= 0) {
+                return 0;
+            }
+            blob.setRefCount(blob.getRefCount() - 1);
+            blob.setUpdatedAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(repository.insertWithOneReference(anyString(), anyLong(), anyString(), any())).thenAnswer(invocation -> {
+            StoredBlob blob = new StoredBlob(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            blob.setRefCount(1);
+            blob.setUpdatedAt(invocation.getArgument(3));
+            blobs.put(blob.getSha256(), blob);
+            return 1;
+        });
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(blobs.get(invocation.<String>getArgument(0))));
+        when(repository.findForUpdate(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(blobs.get(invocation.<String>getArgument(0))));
+        when(repository.findUnreferenced(any(), any(Pageable.class))).thenAnswer(invocation -> blobs.values().stream()
+                .filter(blob -> blob.getRefCount() <= 0 && blob.getUpdatedAt().isBefore(invocation.getArgument(0)))
+                .map(StoredBlob::getSha256)
+                .collect(Collectors.toList()));
+        doAnswer(invocation -> blobs.remove(invocation.<StoredBlob>getArgument(0).getSha256()))
+                .when(repository).delete(any(StoredBlob.class));
+
+        LocalFileStore localFileStore = new LocalFileStore();
+        ReflectionTestUtils.setField(localFileStore, "uploadDir", uploadDir.toString());
+        thumbnailService = mock(ThumbnailService.class);
+
+        service = new BlobStorageService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "gcGraceMinutes", 60L);
+        ReflectionTestUtils.setField(service, "gcBatchSize", 100);
+        ReflectionTestUtils.setField(service, "storedBlobRepository", repository);
+        ReflectionTestUtils.setField(service, "localFileStore", localFileStore);
+        ReflectionTestUtils.setField(service, "objectStore", localFileStore);
+        ReflectionTestUtils.setField(service, "thumbnailService", thumbnailService);
+    }
+
+    @Test
+    void identicalContentIsStoredOnceWithReferenceCount() throws Exception {
+        StoredBlob first = service.store(new ByteArrayInputStream(CONTENT));
+        Path staged = Files.write(uploadDir.resolve("staged.bin"), CONTENT);
+        StoredBlob second = service.store(staged);
+
+        assertEquals(first.getSha256(), second.getSha256());
+        assertEquals(64, first.getSha256().length());
+        assertEquals(2, blobs.get(first.getSha256()).getRefCount());
+        assertArrayEquals(CONTENT, Files.readAllBytes(Paths.get(first.getStoragePath())));
+        assertEquals(Paths.get(first.getStoragePath()), uploadDir.resolve(first.getSha256().substring(0, 2))
+                .resolve(first.getSha256().substring(2, 4)).resolve(first.getSha256()));
+        // 临时文件和已落盘的源文件都不留下
+        assertFalse(Files.exists(staged));
+        try (Stream<Path> temps = Files.list(uploadDir.resolve(".tmp"))) {
+            assertEquals(0, temps.count());
+        }
+
+        StoredBlob other = service.store(new ByteArrayInputStream("other".getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(first.getSha256(), other.getSha256());
+        assertEquals(2, blobs.size());
+    }
+
+    @Test
+    void acquireExistingOnlyReferencesKnownContent() throws Exception {
+        StoredBlob stored = service.store(new ByteArrayInputStream(CONTENT));
+
+        assertTrue(service.acquireExisting(stored.getSha256()).isPresent());
+        assertEquals(2, blobs.get(stored.getSha256()).getRefCount());
+        assertFalse(service.acquireExisting(stored.getSha256().replace(stored.getSha256().charAt(0), 'x')).isPresent());
+    }
+
+    @Test
+    void unreferencedBlobsAreCollectedAfterGracePeriod() throws Exception {
+        StoredBlob stored = service.store(new ByteArrayInputStream(CONTENT));
+        Path path = Paths.get(stored.getStoragePath());
+        service.release(stored.getSha256());
+        service.release(stored.getSha256());
+        assertEquals(0, blobs.get(stored.getSha256()).getRefCount());
+
+        service.collectUnreferenced();
+        assertTrue(Files.exists(path));
+        verify(thumbnailService, never()).deleteDerivatives(anyString());
+
+        blobs.get(stored.getSha256()).setUpdatedAt(LocalDateTime.now().minusHours(2));
+        service.collectUnreferenced();
+
+        assertFalse(Files.exists(path));
+        assertFalse(blobs.containsKey(stored.getSha256()));
+        verify(thumbnailService).deleteDerivatives(stored.getSha256());
+    }
+}
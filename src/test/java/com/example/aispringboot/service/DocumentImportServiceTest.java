@@ -0,0 +1,143 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.ImportJob;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.ImportJobRepository;
+import com.example.aispringboot.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 压缩炸弹：解压后超出单条目上限的压缩包要让整个任务失败，而不是跳过条目后继续
+class DocumentImportServiceTest {
+
+    private static final int LIMIT = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private ImportJob job;
+    private DocumentBatchService documentBatchService;
+    private ThreadPoolTaskExecutor jobExecutor;
+    private ThreadPoolTaskExecutor workerExecutor;
+    private DocumentImportService service;
+
+    @BeforeEach
+    void setUp() {
+        ImportJobRepository importJobRepository = mock(ImportJobRepository.class);
+        when(importJobRepository.claim(anyLong(), anyCollection(), any())).thenAnswer(invocation -> {
+            job.setStatus(ImportJob.RUNNING);
+            return 1;
+        });
+        when(importJobRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(job));
+        when(importJobRepository.save(any(ImportJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User("alice", "alice@example.com", "secret")));
+
+        jobExecutor = new ThreadPoolTaskExecutor();
+        jobExecutor.initialize();
+        workerExecutor = new ThreadPoolTaskExecutor();
+        workerExecutor.initialize();
+        documentBatchService = mock(DocumentBatchService.class);
+
+        service = new DocumentImportService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "maxEntryBytes", (long) LIMIT);
+        ReflectionTestUtils.setField(service, "maxTotalBytes", 10L * LIMIT);
+        ReflectionTestUtils.setField(service, "importJobRepository", importJobRepository);
+        ReflectionTestUtils.setField(service, "documentBatchService", documentBatchService);
+        ReflectionTestUtils.setField(service, "fileStorageService", mock(FileStorageService.class));
+        ReflectionTestUtils.setField(service, "fileRepository", mock(FileRepository.class));
+        ReflectionTestUtils.setField(service, "quotaService", mock(QuotaService.class));
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "importJobExecutor", jobExecutor);
+        ReflectionTestUtils.setField(service, "importWorkerExecutor", workerExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobExecutor.shutdown();
+        workerExecutor.shutdown();
+    }
+
+    @Test
+    void declaredOversizedEntryFailsJob() throws Exception {
+        byte[] archive = zip("bomb.md", new byte[LIMIT * 4]);
+
+        runImport(archive);
+
+        assertEquals(ImportJob.FAILED, job.getStatus());
+        assertTrue(job.getErrorMessage().contains("bomb.md"), job.getErrorMessage());
+    }
+
+    @Test
+    void entryExpandingBeyondItsDeclaredSizeFailsJob() throws Exception {
+        byte[] archive = zip("bomb.md", new byte[LIMIT * 4]);
+        // 把中央目录里声明的解压大小改成 1 字节，只有解压时计数才能发现
+        setCentralDirectoryUncompressedSize(archive, 1);
+
+        runImport(archive);
+
+        assertEquals(ImportJob.FAILED, job.getStatus());
+        assertTrue(job.getErrorMessage().contains("bomb.md"), job.getErrorMessage());
+        verify(documentBatchService, never()).create(any(), any());
+    }
+
+    private void runImport(byte[] archive) throws Exception {
+        Path path = Files.write(tempDir.resolve("import.zip"), archive);
+        job = new ImportJob(1L, "import.zip", path.toString());
+        job.setId(1L);
+
+        assertTrue(service.start(1L));
+        jobExecutor.getThreadPoolExecutor().shutdown();
+        assertTrue(jobExecutor.getThreadPoolExecutor().awaitTermination(30, TimeUnit.SECONDS));
+    }
+
+    private byte[] zip(String name, byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(buffer)) {
+            out.putNextEntry(new ZipEntry(name));
+            out.write(content);
+            out.closeEntry();
+        }
+        return buffer.toByteArray();
+    }
+
+    private void setCentralDirectoryUncompressedSize(byte[] archive, int size) {
+        for (int i = archive.length - 46; i >= 0; i--) {
+            if (archive[i] == 0x50 && archive[i + 1] == 0x4b && archive[i + 2] == 0x01 && archive[i + 3] == 0x02) {
+                archive[i + 24] = (byte) size;
+                archive[i + 25] = (byte) (size >>> 8);
+                archive[i + 26] = (byte) (size >>> 16);
+                archive[i + 27] = (byte) (size >>> 24);
+                return;
+            }
+        }
+        throw new IllegalStateException("No central directory header");
+    }
+}
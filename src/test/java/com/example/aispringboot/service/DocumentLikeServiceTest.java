@@ -0,0 +1,160 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.DocumentLikeSet;
+import com.example.aispringboot.repository.DocumentLikeSetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 并发点赞、取消和写回交错进行时，每次写回后库里的计数都要与同一次写回的位图一致
+class DocumentLikeServiceTest {
+
+    private static final long DOCUMENT_ID = 1L;
+    private static final int USERS = 200;
+
+    private final Map<Long, byte[]> storedBitmaps = new ConcurrentHashMap<>();
+    private final AtomicLong storedCount = new AtomicLong();
+
+    private DocumentLikeService service;
+
+    @BeforeEach
+    void setUp() {
+        DocumentLikeSetRepository repository = mock(DocumentLikeSetRepository.class);
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(storedBitmaps
+                .get(invocation.<Long>getArgument(0))).map(bitmap -> new DocumentLikeSet(invocation.getArgument(0), bitmap)));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            for (DocumentLikeSet likeSet : invocation.<List<DocumentLikeSet>>getArgument(0)) {
+                storedBitmaps.put(likeSet.getDocumentId(), likeSet.getBitmap());
+            }
+            return invocation.getArgument(0);
+        });
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> updates = invocation.getArgument(1);
+            for (Object[] update : updates) {
+                storedCount.addAndGet((Long) update[0]);
+            }
+            return new int[updates.size()];
+        });
+
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+
+        service = new DocumentLikeService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "documentLikeSetRepository", repository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "entityManagerFactory", entityManagerFactory);
+        // 每次写回后都淘汰空闲状态，让重新加载也参与竞争
+        ReflectionTestUtils.setField(service, "idleEvictionMs", 0L);
+    }
+
+    @Test
+    void likeAndUnlikeAreDeduplicated() {
+        assertTrue(service.like(DOCUMENT_ID, 5L));
+        assertFalse(service.like(DOCUMENT_ID, 5L));
+        assertTrue(service.hasLiked(DOCUMENT_ID, 5L));
+        assertEquals(1, service.pendingDelta(DOCUMENT_ID));
+
+        assertTrue(service.unlike(DOCUMENT_ID, 5L));
+        assertFalse(service.unlike(DOCUMENT_ID, 5L));
+        assertFalse(service.hasLiked(DOCUMENT_ID, 5L));
+        assertEquals(0, service.pendingDelta(DOCUMENT_ID));
+    }
+
+    @Test
+    void concurrentLikesUnlikesAndFlushesKeepCountConsistent() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong mismatches = new AtomicLong();
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (running.get()) {
+                    service.flush();
+                    byte[] bitmap = storedBitmaps.get(DOCUMENT_ID);
+                    if (bitmap != null && deserialize(bitmap).getLongCardinality() != storedCount.get()) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        long userId = random.nextInt(USERS);
+                        int action = random.nextInt(3);
+                        if (action == 0 && service.like(DOCUMENT_ID, userId)) {
+                            accepted.incrementAndGet();
+                        } else if (action == 1 && service.unlike(DOCUMENT_ID, userId)) {
+                            accepted.decrementAndGet();
+                        } else {
+                            service.hasLiked(DOCUMENT_ID, userId);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        service.flush();
+
+        assertEquals(0, mismatches.get());
+        long liked = 0;
+        for (long userId = 0; userId < USERS; userId++) {
+            if (service.hasLiked(DOCUMENT_ID, userId)) {
+                liked++;
+            }
+        }
+        assertEquals(accepted.get(), liked);
+        assertEquals(liked, storedCount.get());
+        assertEquals(liked, deserialize(storedBitmaps.get(DOCUMENT_ID)).getLongCardinality());
+        assertEquals(0, service.pendingDelta(DOCUMENT_ID));
+    }
+
+    private Roaring64NavigableMap deserialize(byte[] bytes) throws IOException {
+        Roaring64NavigableMap users = new Roaring64NavigableMap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            users.deserialize(in);
+        }
+        return users;
+    }
+}
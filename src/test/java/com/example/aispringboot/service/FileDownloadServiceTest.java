@@ -0,0 +1,176 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileDownloadServiceTest {
+
+    private static final String BLOB_HASH = "ab12" + repeat('0', 60);
+    private static final byte[] CONTENT = "secret attachment".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploadDir;
+
+    private FileRepository fileRepository;
+    private StoredBlobRepository storedBlobRepository;
+    private LocalFileStore localFileStore;
+    private FileDownloadService service;
+
+    @BeforeEach
+    void setUp() {
+        fileRepository = mock(FileRepository.class);
+        storedBlobRepository = mock(StoredBlobRepository.class);
+        when(fileRepository.findByFileName(anyString())).thenReturn(Optional.empty());
+
+        localFileStore = new LocalFileStore();
+        ReflectionTestUtils.setField(localFileStore, "uploadDir", uploadDir.toString());
+
+        service = new FileDownloadService();
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "storedBlobRepository", storedBlobRepository);
+        ReflectionTestUtils.setField(service, "localFileStore", localFileStore);
+        ReflectionTestUtils.setField(service, "objectStore", localFileStore);
+        ReflectionTestUtils.setField(service, "metadataCacheSize", 100L);
+        ReflectionTestUtils.setField(service, "metadataCacheTtlSeconds", 30L);
+        service.init();
+    }
+
+    @Test
+    void blobHashWithoutFileRecordIsNotServed() throws IOException {
+        Path sharded = localFileStore.pathFor(BLOB_HASH);
+        Files.createDirectories(sharded.getParent());
+        Files.write(sharded, CONTENT);
+        // 分片迁移前的 blob 平铺在根目录下
+        Files.write(uploadDir.resolve(BLOB_HASH), CONTENT);
+        when(storedBlobRepository.existsById(BLOB_HASH)).thenReturn(true);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(service.serve(BLOB_HASH, get(), response));
+        assertFalse(service.serve("ab/12/" + BLOB_HASH, get(), response));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void legacyFlatFileWithoutRecordIsServed() throws IOException {
+        Files.write(uploadDir.resolve("legacy.txt"), CONTENT);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(service.serve("legacy.txt", get(), response));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void deletedFileIsNotServed() throws IOException {
+        Path path = Files.write(uploadDir.resolve("deleted.txt"), CONTENT);
+        File file = new File();
+        file.setFileName("deleted.txt");
+        file.setFilePath(path.toString());
+        file.setIsDeleted(true);
+        when(fileRepository.findByFileName("deleted.txt")).thenReturn(Optional.of(file));
+
+        assertFalse(service.serve("deleted.txt", get(), new MockHttpServletResponse()));
+    }
+
+    @Test
+    void cachedMetadataExpiresSoDeletesOnOtherInstancesTakeEffect() throws Exception {
+        ReflectionTestUtils.setField(service, "metadataCacheTtlSeconds", 1L);
+        service.init();
+        Path path = Files.write(uploadDir.resolve("shared.txt"), CONTENT);
+        File file = new File();
+        file.setFileName("shared.txt");
+        file.setOriginalName("shared.txt");
+        file.setFileType("text/plain");
+        file.setFilePath(path.toString());
+        when(fileRepository.findByFileName("shared.txt")).thenReturn(Optional.of(file));
+        assertTrue(service.serve("shared.txt", get(), new MockHttpServletResponse()));
+
+        // 另一个实例把文件移入回收站，本实例的缓存没有被清掉
+        File deleted = new File();
+        deleted.setFileName("shared.txt");
+        deleted.setFilePath(path.toString());
+        deleted.setIsDeleted(true);
+        when(fileRepository.findByFileName("shared.txt")).thenReturn(Optional.of(deleted));
+        Thread.sleep(1100);
+
+        assertFalse(service.serve("shared.txt", get(), new MockHttpServletResponse()));
+    }
+
+    @Test
+    void suffixRangeReturnsLastBytes() throws IOException {
+        Files.write(uploadDir.resolve("legacy.txt"), CONTENT);
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=-6");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(service.serve("legacy.txt", request, response));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes " + (CONTENT.length - 6) + "-" + (CONTENT.length - 1) + "/" + CONTENT.length,
+                response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, CONTENT.length - 6, CONTENT.length), response.getContentAsByteArray());
+    }
+
+    @Test
+    void multiRangeFallsBackToFullContent() throws IOException {
+        Files.write(uploadDir.resolve("legacy.txt"), CONTENT);
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=0-1,4-5");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(service.serve("legacy.txt", request, response));
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Range"));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void unsatisfiableRangeIs416() throws IOException {
+        Files.write(uploadDir.resolve("legacy.txt"), CONTENT);
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", "bytes=" + CONTENT.length + "-");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(service.serve("legacy.txt", request, response));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + CONTENT.length, response.getHeader("Content-Range"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/files/download");
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
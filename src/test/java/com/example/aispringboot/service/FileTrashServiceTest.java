@@ -0,0 +1,122 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.payload.response.BatchItemResult;
+import com.example.aispringboot.repository.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 删除只做标记并立即归还配额；保留期过后先删记录再释放内容，单个文件释放失败不影响其他文件
+class FileTrashServiceTest {
+
+    private static final Long OWNER = 1L;
+    private static final Long DOCUMENT_OWNER = 2L;
+    private static final Long STRANGER = 3L;
+
+    private FileRepository fileRepository;
+    private FileStorageService fileStorageService;
+    private FileDownloadService fileDownloadService;
+    private QuotaService quotaService;
+    private FileTrashService service;
+
+    @BeforeEach
+    void setUp() {
+        fileRepository = mock(FileRepository.class);
+        when(fileRepository.findDeleteCandidates(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream()
+                        .filter(id -> id <= 3)
+                        .map(id -> new Object[]{id, "file-" + id, OWNER, DOCUMENT_OWNER, 100L * id, 9L})
+                        .collect(Collectors.toList()));
+        fileStorageService = mock(FileStorageService.class);
+        fileDownloadService = mock(FileDownloadService.class);
+        quotaService = mock(QuotaService.class);
+
+        service = new FileTrashService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "retentionHours", 24L);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxBatches", 10);
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(service, "fileDownloadService", fileDownloadService);
+        ReflectionTestUtils.setField(service, "quotaService", quotaService);
+    }
+
+    @Test
+    void softDeleteReportsPerFileStatusAndReleasesQuotaOnce() {
+        when(fileRepository.softDeleteById(eq(1L), any())).thenReturn(1);
+        // 2 号已被并发请求移入回收站
+        when(fileRepository.softDeleteById(eq(2L), any())).thenReturn(0);
+
+        List<BatchItemResult> results = service.softDelete(Arrays.asList(1L, 2L, 5L), DOCUMENT_OWNER);
+
+        assertEquals(Arrays.asList(BatchItemResult.OK, BatchItemResult.NOT_FOUND, BatchItemResult.NOT_FOUND),
+                statuses(results));
+        verify(fileDownloadService).evict("file-1");
+        verify(quotaService).recordDelete(OWNER, 9L, 100L);
+        verify(fileDownloadService, never()).evict("file-2");
+        verify(quotaService, never()).recordDelete(OWNER, 9L, 200L);
+    }
+
+    @Test
+    void softDeleteRejectsOtherUsers() {
+        List<BatchItemResult> results = service.softDelete(Collections.singletonList(3L), STRANGER);
+
+        assertEquals(Collections.singletonList(BatchItemResult.FORBIDDEN), statuses(results));
+        verify(fileRepository, never()).softDeleteById(anyLong(), any());
+        verify(quotaService, never()).recordDelete(any(), any(), anyLong());
+    }
+
+    @Test
+    void purgeDeletesRecordsBeforeReleasingContentAndSurvivesFailures() throws IOException {
+        List<File> first = Arrays.asList(file(1L), file(2L));
+        List<File> second = Collections.singletonList(file(3L));
+        when(fileRepository.findExpiredDeleted(any(), any(Pageable.class)))
+                .thenReturn(first, second, Collections.emptyList());
+        doThrow(new IOException("disk error")).when(fileStorageService).releaseContent(first.get(0));
+
+        service.purgeExpired();
+
+        InOrder order = inOrder(fileRepository, fileStorageService);
+        order.verify(fileRepository).deleteAllByIdInBatch(Arrays.asList(1L, 2L));
+        order.verify(fileStorageService).releaseContent(first.get(0));
+        order.verify(fileStorageService).releaseContent(first.get(1));
+        order.verify(fileRepository).deleteAllByIdInBatch(Collections.singletonList(3L));
+        order.verify(fileStorageService).releaseContent(second.get(0));
+        verify(fileDownloadService).evict("file-1");
+        verify(fileDownloadService).evict("file-3");
+    }
+
+    private static File file(Long id) {
+        File file = new File();
+        file.setId(id);
+        file.setFileName("file-" + id);
+        return file;
+    }
+
+    private static List<String> statuses(List<BatchItemResult> results) {
+        return results.stream().map(BatchItemResult::getStatus).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.StorageUsage;
+import com.example.aispringboot.repository.StorageUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 配额计数：预留挡住并发超额，上传删除原子增减，定时校准按 files 表修正偏差
+class QuotaServiceTest {
+
+    private final Map<String, long[]> rows = new ConcurrentHashMap<>();
+    private final List<Map<String, Object>> userUsageRows = new ArrayList<>();
+
+    private QuotaService service;
+
+    @BeforeEach
+    void setUp() {
+        StorageUsageRepository repository = mock(StorageUsageRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<String>getArgument(0)))
+                        .map(row -> usage(invocation.getArgument(0), row)));
+        when(repository.findAll()).thenAnswer(invocation -> {
+            List<StorageUsage> all = new ArrayList<>();
+            rows.forEach((id, row) -> all.add(usage(id, row)));
+            return all;
+        });
+        when(repository.add(anyString(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long[] row = rows.get(invocation.<String>getArgument(0));
+            if (row == null) {
+                return 0;
+            }
+            row[0] += invocation.<Long>getArgument(1);
+            row[1] += invocation.<Long>getArgument(2);
+            return 1;
+        });
+        when(repository.insert(anyString(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            rows.put(invocation.getArgument(0), new long[]{invocation.getArgument(1), invocation.getArgument(2)});
+            return 1;
+        });
+        when(repository.reconcile(anyString(), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long[] row = rows.get(invocation.<String>getArgument(0));
+            if (row == null || row[0] != invocation.<Long>getArgument(3) || row[1] != invocation.<Long>getArgument(4)) {
+                return 0;
+            }
+            row[0] = invocation.getArgument(1);
+            row[1] = invocation.getArgument(2);
+            return 1;
+        });
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(0).contains("GROUP BY user_id") ? userUsageRows : Collections.emptyList());
+
+        service = new QuotaService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "userMaxBytes", 100L);
+        ReflectionTestUtils.setField(service, "documentMaxBytes", 50L);
+        ReflectionTestUtils.setField(service, "storageUsageRepository", repository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void reservationsCountAgainstQuotaUntilClosed() {
+        QuotaService.Reservation first = service.reserve(1L, null, 60);
+        assertThrows(QuotaService.QuotaExceededException.class, () -> service.reserve(1L, null, 50));
+        assertFalse(service.hasRoomFor(1L, 50));
+
+        first.close();
+        // 重复关闭不会多释放
+        first.close();
+        service.reserve(1L, null, 50).close();
+        assertTrue(service.hasRoomFor(1L, 100));
+    }
+
+    @Test
+    void documentQuotaFailureReleasesUserReservation() {
+        assertThrows(QuotaService.QuotaExceededException.class, () -> service.reserve(1L, 9L, 60));
+
+        assertTrue(service.hasRoomFor(1L, 100));
+    }
+
+    @Test
+    void uploadsAndDeletesAdjustCounters() {
+        service.recordUpload(1L, 9L, 40);
+        service.recordUpload(1L, null, 20);
+
+        assertEquals(60L, service.userUsage(1L).get("bytesUsed"));
+        assertEquals(2L, service.userUsage(1L).get("fileCount"));
+        assertArrayEquals(new long[]{40, 1}, rows.get("document:9"));
+        assertThrows(QuotaService.QuotaExceededException.class, () -> service.reserve(1L, null, 50));
+
+        service.recordDelete(1L, 9L, 40);
+
+        assertEquals(20L, service.userUsage(1L).get("bytesUsed"));
+        assertArrayEquals(new long[]{0, 0}, rows.get("document:9"));
+        service.reserve(1L, null, 50).close();
+    }
+
+    @Test
+    void reconcileRewritesDriftedCountersFromFiles() {
+        rows.put("user:1", new long[]{999, 5});
+        rows.put("user:2", new long[]{10, 1});
+        userUsageRows.add(Map.of("OWNER_ID", 1L, "FILES", 2L, "BYTES", 30L));
+        userUsageRows.add(Map.of("OWNER_ID", 3L, "FILES", 1L, "BYTES", 7L));
+        // 先读进缓存，校准后要看到新值
+        assertEquals(999L, service.userUsage(1L).get("bytesUsed"));
+
+        service.reconcile();
+
+        assertArrayEquals(new long[]{30, 2}, rows.get("user:1"));
+        assertArrayEquals(new long[]{0, 0}, rows.get("user:2"));
+        assertArrayEquals(new long[]{7, 1}, rows.get("user:3"));
+        assertEquals(30L, service.userUsage(1L).get("bytesUsed"));
+    }
+
+    private static StorageUsage usage(String id, long[] row) {
+        StorageUsage usage = new StorageUsage();
+        usage.setId(id);
+        usage.setBytesUsed(row[0]);
+        usage.setFileCount(row[1]);
+        return usage;
+    }
+}
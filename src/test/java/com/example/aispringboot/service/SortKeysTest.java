@@ -0,0 +1,74 @@
+package com.example.aispringboot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SortKeysTest {
+
+    @Test
+    void betweenKeepsOrderForRandomInserts() {
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int position = random.nextInt(keys.size() + 1);
+            String before = position == 0 ? null : keys.get(position - 1);
+            String after = position == keys.size() ? null : keys.get(position);
+
+            String key = SortKeys.between(before, after);
+
+            assertTrue(before == null || before.compareTo(key) < 0, before + " < " + key);
+            assertTrue(after == null || key.compareTo(after) < 0, key + " < " + after);
+            assertFalse(key.endsWith("0"), key);
+            keys.add(position, key);
+        }
+    }
+
+    @Test
+    void betweenBisectsTheDigitRange() {
+        assertEquals("0i", SortKeys.between(null, "1"));
+        assertEquals("ai", SortKeys.between("a", "b"));
+        assertEquals("b", SortKeys.between("a", null));
+    }
+
+    // 每个字符约能容纳 5 次二分，200 次插入远低于重排阈值
+    @Test
+    void repeatedPrependsKeepKeysShort() {
+        String first = "1";
+        for (int i = 0; i < 200; i++) {
+            String key = SortKeys.between(null, first);
+            assertTrue(key.compareTo(first) < 0, key + " < " + first);
+            assertFalse(key.endsWith("0"), key);
+            first = key;
+        }
+        assertTrue(first.length() <= 45, first);
+    }
+
+    @Test
+    void repeatedInsertsAfterSameNodeKeepKeysShort() {
+        String anchor = "a";
+        String next = "b";
+        for (int i = 0; i < 200; i++) {
+            String key = SortKeys.between(anchor, next);
+            assertTrue(anchor.compareTo(key) < 0 && key.compareTo(next) < 0, anchor + " < " + key + " < " + next);
+            assertFalse(key.endsWith("0"), key);
+            next = key;
+        }
+        assertTrue(next.length() <= 45, next);
+    }
+
+    @Test
+    void spreadProducesOrderedKeys() {
+        String[] keys = SortKeys.spread(2000);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1].compareTo(keys[i]) < 0);
+            assertFalse(keys[i].endsWith("0"));
+        }
+    }
+}
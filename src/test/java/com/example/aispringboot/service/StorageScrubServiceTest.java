@@ -0,0 +1,139 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.repository.FileRepository;
+import com.example.aispringboot.repository.StoredBlobRepository;
+import com.example.aispringboot.storage.LocalFileStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 孤儿回收：宽限期内的未引用文件只计数不删除，加载引用后才建档的文件删除前回查保留
+class StorageScrubServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ThreadPoolTaskExecutor storageExecutor;
+    private StorageScrubService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path referenced = old(write("referenced.txt"));
+        old(write("orphan.txt"));
+        old(write("late.txt"));
+        write("fresh.txt");
+        // 以 . 开头的目录存放临时文件，不参与巡检
+        Files.createDirectories(uploadDir.resolve(".tmp"));
+        old(Files.write(uploadDir.resolve(".tmp/partial"), new byte[]{1}));
+
+        FileRepository fileRepository = mock(FileRepository.class);
+        when(fileRepository.findPathBatch(anyLong(), any(Pageable.class))).thenAnswer(invocation ->
+                invocation.<Long>getArgument(0) == 0L
+                        ? Collections.singletonList(new Object[]{1L, referenced.toString()})
+                        : Collections.emptyList());
+        StoredBlobRepository storedBlobRepository = mock(StoredBlobRepository.class);
+        when(storedBlobRepository.findScrubBatch(anyString(), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // late.txt 在加载引用之后才建档
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString(), anyString(), anyString(), anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(2).endsWith("late.txt") ? 1L : 0L);
+
+        LocalFileStore localFileStore = new LocalFileStore();
+        ReflectionTestUtils.setField(localFileStore, "uploadDir", uploadDir.toString());
+
+        storageExecutor = new ThreadPoolTaskExecutor();
+        storageExecutor.initialize();
+
+        service = new StorageScrubService();
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "ioBytesPerSecond", 0L);
+        ReflectionTestUtils.setField(service, "orphanGraceHours", 24L);
+        ReflectionTestUtils.setField(service, "verifyChecksums", true);
+        ReflectionTestUtils.setField(service, "fileRepository", fileRepository);
+        ReflectionTestUtils.setField(service, "storedBlobRepository", storedBlobRepository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "localFileStore", localFileStore);
+        ReflectionTestUtils.setField(service, "storageExecutor", storageExecutor);
+        ReflectionTestUtils.setField(service, "maintenanceLock", new StorageMaintenanceLock());
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageExecutor.shutdown();
+    }
+
+    @Test
+    void reportOnlyRunDeletesNothing() throws Exception {
+        Map<String, Object> report = scrub(false);
+
+        assertEquals(4L, report.get("diskFiles"));
+        assertEquals(2L, report.get("orphans"));
+        assertEquals(1L, report.get("recentUnreferenced"));
+        assertEquals(0L, report.get("orphansRemoved"));
+        assertTrue(Files.exists(uploadDir.resolve("orphan.txt")));
+    }
+
+    @Test
+    void removesOnlyOrphansPastTheGracePeriod() throws Exception {
+        Map<String, Object> report = scrub(true);
+
+        assertEquals(1L, report.get("orphansRemoved"));
+        assertEquals(1L, report.get("orphanRechecked"));
+        assertEquals(1L, report.get("recentUnreferenced"));
+        assertFalse(Files.exists(uploadDir.resolve("orphan.txt")));
+        assertTrue(Files.exists(uploadDir.resolve("late.txt")));
+        assertTrue(Files.exists(uploadDir.resolve("fresh.txt")));
+        assertTrue(Files.exists(uploadDir.resolve("referenced.txt")));
+        assertTrue(Files.exists(uploadDir.resolve(".tmp/partial")));
+    }
+
+    private Map<String, Object> scrub(boolean removeOrphans) throws InterruptedException {
+        assertTrue(service.start(removeOrphans));
+        long deadline = System.currentTimeMillis() + 30_000;
+        Map<String, Object> report = service.report();
+        while (Boolean.TRUE.equals(report.get("running")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            report = service.report();
+        }
+        assertEquals(Boolean.FALSE, report.get("running"));
+        assertNull(report.get("error"));
+        return report;
+    }
+
+    private Path write(String name) throws Exception {
+        return Files.write(uploadDir.resolve(name), name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Path old(Path path) throws Exception {
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(48, ChronoUnit.HOURS)));
+        return path;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.model.File;
+import com.example.aispringboot.storage.LocalFileStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 缩略图：一次生成全部尺寸并取不小于请求的最小一级，超大图片拒绝解码，缓存超限时先淘汰最旧的
+class ThumbnailServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalFileStore localFileStore;
+    private ThreadPoolTaskExecutor thumbnailExecutor;
+    private ThumbnailService service;
+
+    @BeforeEach
+    void setUp() {
+        localFileStore = new LocalFileStore();
+        ReflectionTestUtils.setField(localFileStore, "uploadDir", uploadDir.toString());
+
+        thumbnailExecutor = new ThreadPoolTaskExecutor();
+        thumbnailExecutor.initialize();
+
+        service = new ThumbnailService();
+        ReflectionTestUtils.setField(service, "sizes", new int[]{128, 256, 512});
+        ReflectionTestUtils.setField(service, "maxDecodedPixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "cacheMaxBytes", 1L << 30);
+        ReflectionTestUtils.setField(service, "onDemandTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(service, "localFileStore", localFileStore);
+        ReflectionTestUtils.setField(service, "objectStore", localFileStore);
+        ReflectionTestUtils.setField(service, "thumbnailExecutor", thumbnailExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailExecutor.shutdown();
+    }
+
+    @Test
+    void generatesAllSizesOnDemandAndServesSmallestLargeEnough() throws Exception {
+        File file = image("photo.png", "image/png", 1000, 600);
+
+        Optional<Path> thumbnail = service.thumbnail(file, 200);
+
+        assertTrue(thumbnail.isPresent());
+        BufferedImage image = ImageIO.read(thumbnail.get().toFile());
+        assertEquals(256, image.getWidth());
+        assertEquals(154, image.getHeight());
+        for (int size : new int[]{128, 256, 512}) {
+            assertTrue(Files.isRegularFile(localFileStore.derivativePathFor("photo.png", "thumb-" + size + ".png")));
+        }
+        assertEquals("image/png", service.contentTypeOf(file));
+        assertEquals(1L, service.stats().get("cacheMisses"));
+
+        service.thumbnail(file, 600);
+        assertEquals(1L, service.stats().get("cacheHits"));
+        assertEquals(1L, service.stats().get("generated"));
+    }
+
+    @Test
+    void enqueuedUploadsAreGeneratedInBackground() throws Exception {
+        File file = image("scan.jpg", "image/jpeg", 300, 300);
+
+        service.enqueue(file);
+        thumbnailExecutor.getThreadPoolExecutor().shutdown();
+        assertTrue(thumbnailExecutor.getThreadPoolExecutor().awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(Files.isRegularFile(localFileStore.derivativePathFor("scan.jpg", "thumb-512.jpg")));
+        assertEquals(300, ImageIO.read(localFileStore.derivativePathFor("scan.jpg", "thumb-512.jpg").toFile()).getWidth());
+        assertEquals(1L, service.stats().get("enqueued"));
+    }
+
+    @Test
+    void oversizedAndUnsupportedImagesGetNoThumbnail() throws Exception {
+        ReflectionTestUtils.setField(service, "maxDecodedPixels", 10_000L);
+        File file = image("huge.png", "image/png", 1000, 600);
+
+        assertFalse(service.thumbnail(file, 128).isPresent());
+        assertEquals(1L, service.stats().get("failed"));
+
+        File text = new File();
+        text.setFileName("notes.txt");
+        text.setFileType("text/plain");
+        assertFalse(service.thumbnail(text, 128).isPresent());
+    }
+
+    @Test
+    void evictsOldestThumbnailsOverCacheLimit() throws Exception {
+        File older = image("older.png", "image/png", 800, 800);
+        File newer = image("newer.png", "image/png", 800, 800);
+        service.thumbnail(older, 128);
+        service.thumbnail(newer, 128);
+        long now = System.currentTimeMillis();
+        for (int size : new int[]{128, 256, 512}) {
+            Files.setLastModifiedTime(localFileStore.derivativePathFor("older.png", "thumb-" + size + ".png"),
+                    FileTime.fromMillis(now - 10_000));
+        }
+        long newerBytes = 0;
+        for (int size : new int[]{128, 256, 512}) {
+            newerBytes += Files.size(localFileStore.derivativePathFor("newer.png", "thumb-" + size + ".png"));
+        }
+        // 上限的九成刚好放下较新的一组
+        ReflectionTestUtils.setField(service, "cacheMaxBytes", newerBytes * 10 / 9 + 10);
+
+        service.evictCache();
+
+        assertFalse(Files.exists(localFileStore.derivativePathFor("older.png", "thumb-512.png")));
+        assertTrue(Files.exists(localFileStore.derivativePathFor("newer.png", "thumb-512.png")));
+        assertEquals(newerBytes, service.stats().get("cacheBytes"));
+
+        service.deleteDerivatives("newer.png");
+        assertFalse(Files.exists(localFileStore.derivativePathFor("newer.png", "thumb-128.png")));
+    }
+
+    private File image(String name, String type, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 31 + y * 17) & 0xffffff);
+            }
+        }
+        Path path = uploadDir.resolve(name);
+        ImageIO.write(image, type.endsWith("png") ? "png" : "jpg", path.toFile());
+        File file = new File();
+        file.setFileName(name);
+        file.setFileType(type);
+        file.setFilePath(path.toString());
+        return file;
+    }
+}
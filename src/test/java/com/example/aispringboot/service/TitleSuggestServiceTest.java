@@ -0,0 +1,71 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.payload.response.TitleSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 标题补全：大小写无关的前缀匹配、中文标题的全拼和首字母、按可见范围区分公开和私有文档
+class TitleSuggestServiceTest {
+
+    private static final Long ALICE = 1L;
+    private static final Long BOB = 2L;
+
+    private TitleSuggestService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TitleSuggestService();
+        service.index(10L, "Spring Boot Guide", ALICE, true);
+        service.index(11L, "Spring Cloud Notes", ALICE, false);
+        service.index(12L, "中文文档", BOB, true);
+        service.index(13L, "Summer plans", BOB, false);
+    }
+
+    @Test
+    void matchesCaseInsensitivePrefix() {
+        assertEquals(Collections.singletonList(10L), ids(service.suggest("  SPRING b", null, 10)));
+        assertTrue(service.suggest("boot", null, 10).isEmpty());
+    }
+
+    @Test
+    void matchesPinyinAndInitials() {
+        assertEquals(Collections.singletonList(12L), ids(service.suggest("zhongwen", null, 10)));
+        assertEquals(Collections.singletonList(12L), ids(service.suggest("zhong w", null, 10)));
+        assertEquals(Collections.singletonList(12L), ids(service.suggest("zwwd", null, 10)));
+        assertEquals(Collections.singletonList(12L), ids(service.suggest("中文", null, 10)));
+    }
+
+    @Test
+    void privateTitlesOnlyVisibleToOwner() {
+        assertEquals(Collections.singletonList(10L), ids(service.suggest("spring", BOB, 10)));
+        assertEquals(Arrays.asList(10L, 11L), ids(service.suggest("spring", ALICE, 10)));
+        assertEquals(Collections.singletonList(10L), ids(service.suggest("spring", ALICE, 1)));
+        assertTrue(service.suggest("summer", ALICE, 10).isEmpty());
+    }
+
+    @Test
+    void reindexingAndVisibilityChangesUpdateResults() {
+        service.updateVisibility(Collections.singletonList(11L), true);
+        assertEquals(Arrays.asList(10L, 11L), ids(service.suggest("spring", BOB, 10)));
+
+        service.index(10L, "Boot Guide", ALICE, true);
+        assertEquals(Collections.singletonList(11L), ids(service.suggest("spring", BOB, 10)));
+        assertEquals(Collections.singletonList(10L), ids(service.suggest("boot", BOB, 10)));
+
+        service.remove(Arrays.asList(10L, 11L));
+        assertTrue(service.suggest("spring", ALICE, 10).isEmpty());
+        assertTrue(service.suggest("boot", ALICE, 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<TitleSuggestion> suggestions) {
+        return suggestions.stream().map(TitleSuggestion::getId).collect(Collectors.toList());
+    }
+}
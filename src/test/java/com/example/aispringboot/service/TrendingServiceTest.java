@@ -0,0 +1,119 @@
+package com.example.aispringboot.service;
+
+import com.example.aispringboot.entity.Document;
+import com.example.aispringboot.entity.TrendingCheckpoint;
+import com.example.aispringboot.entity.User;
+import com.example.aispringboot.payload.response.TrendingDocument;
+import com.example.aispringboot.repository.DocumentRepository;
+import com.example.aispringboot.repository.TrendingCheckpointRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// 热门榜：按窗口半衰期衰减，只保留前 K 篇公开文档，低于阈值的分数被清理
+class TrendingServiceTest {
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final List<TrendingCheckpoint> checkpoints = new ArrayList<>();
+
+    private TrendingService service;
+
+    @BeforeEach
+    void setUp() {
+        DocumentRepository documentRepository = mock(DocumentRepository.class);
+        when(documentRepository.findByIdInAndIsDeletedFalse(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(documents::get)
+                        .filter(document -> document != null)
+                        .collect(Collectors.toList()));
+        TrendingCheckpointRepository checkpointRepository = mock(TrendingCheckpointRepository.class);
+        when(checkpointRepository.findAll()).thenReturn(checkpoints);
+
+        service = new TrendingService();
+        ReflectionTestUtils.setField(service, "topK", 2);
+        ReflectionTestUtils.setField(service, "minScore", 0.05);
+        ReflectionTestUtils.setField(service, "viewWeight", 1.0);
+        ReflectionTestUtils.setField(service, "likeWeight", 5.0);
+        ReflectionTestUtils.setField(service, "editWeight", 3.0);
+        ReflectionTestUtils.setField(service, "documentRepository", documentRepository);
+        ReflectionTestUtils.setField(service, "trendingCheckpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+
+        for (long id = 1; id <= 5; id++) {
+            document(id, id != 4);
+        }
+    }
+
+    @Test
+    void keepsTopKPublicDocumentsByScore() {
+        service.recordLike(1L);
+        service.recordView(2L);
+        service.recordEdit(3L);
+        // 私有文档分数最高也不上榜
+        service.recordLike(4L);
+        service.recordLike(4L);
+        service.recordView(5L);
+        service.recordView(5L);
+
+        service.refresh();
+
+        assertEquals(Arrays.asList(1L, 3L), ids(service.getTrending(TrendingService.HOUR, 10)));
+        assertEquals(Arrays.asList(1L), ids(service.getTrending(TrendingService.DAY, 1)));
+        assertEquals(5.0, service.getTrending(TrendingService.WEEK, 10).get(0).getScore(), 0.01);
+    }
+
+    @Test
+    void unlikeCancelsLike() {
+        service.recordLike(1L);
+        service.recordUnlike(1L);
+        service.recordView(2L);
+
+        service.refresh();
+
+        assertEquals(Arrays.asList(2L), ids(service.getTrending(TrendingService.HOUR, 10)));
+    }
+
+    @Test
+    void restoredScoresDecayByEachWindowsHalfLife() {
+        long hourAgo = System.currentTimeMillis() - 3_600_000L;
+        checkpoints.add(new TrendingCheckpoint(TrendingService.HOUR, hourAgo, "{\"1\":8.0,\"2\":0.08}"));
+        checkpoints.add(new TrendingCheckpoint(TrendingService.DAY, hourAgo, "{\"1\":8.0}"));
+
+        service.restore();
+
+        List<TrendingDocument> hour = service.getTrending(TrendingService.HOUR, 10);
+        // 一个半衰期后减半；2 号衰减到阈值以下被清理
+        assertEquals(Arrays.asList(1L), ids(hour));
+        assertEquals(4.0, hour.get(0).getScore(), 0.01);
+        assertEquals(8.0 * Math.pow(0.5, 1.0 / 24), service.getTrending(TrendingService.DAY, 10).get(0).getScore(), 0.01);
+        assertTrue(service.getTrending(TrendingService.WEEK, 10).isEmpty());
+    }
+
+    private void document(long id, boolean isPublic) {
+        User user = new User("alice", "alice@example.com", "secret");
+        user.setId(1L);
+        Document document = new Document("Doc " + id, "", user);
+        document.setId(id);
+        document.setIsPublic(isPublic);
+        documents.put(id, document);
+    }
+
+    private static List<Long> ids(List<TrendingDocument> trending) {
+        return trending.stream().map(TrendingDocument::getId).collect(Collectors.toList());
+    }
+}
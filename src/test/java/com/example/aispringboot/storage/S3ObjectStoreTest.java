@@ -0,0 +1,146 @@
+package com.example.aispringboot.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StreamUtils;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 对着 MinIO 容器验证分段上传、范围读取和预签名下载；没有 Docker 的环境整体跳过
+@Testcontainers(disabledWithoutDocker = true)
+class S3ObjectStoreTest {
+
+    private static final String BUCKET = "attachments";
+
+    // S3 允许的最小分段
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+
+    @Container
+    private static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    private static S3Client client;
+    private static S3ObjectStore store;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void createStore() {
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword()));
+        S3Configuration configuration = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        URI endpoint = URI.create(MINIO.getS3URL());
+
+        client = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .endpointOverride(endpoint)
+                .build();
+        S3Presigner presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .endpointOverride(endpoint)
+                .build();
+        client.createBucket(request -> request.bucket(BUCKET));
+        store = new S3ObjectStore(client, presigner, BUCKET, "test/", PART_SIZE, new LocalFileStore());
+    }
+
+    @AfterAll
+    static void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void putAbovePartSizeUsesMultipartUpload() throws IOException {
+        byte[] content = randomBytes((int) (2 * PART_SIZE + 1234));
+        Path source = write("large.bin", content);
+
+        String location = store.put("large.bin", source);
+
+        assertEquals("s3://" + BUCKET + "/test/large.bin", location);
+        assertFalse(Files.exists(source));
+        // 分段上传的对象 ETag 以 -分段数 结尾
+        String eTag = client.headObject(request -> request.bucket(BUCKET).key("test/large.bin")).eTag();
+        assertTrue(eTag.replace("\"", "").endsWith("-3"), eTag);
+        assertEquals(content.length, store.stat(location).get().getSize());
+        try (InputStream in = store.open(location, 0, -1)) {
+            assertArrayEquals(content, StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    @Test
+    void openReadsTheRequestedRange() throws IOException {
+        byte[] content = randomBytes(10_000);
+        String location = store.put("range.bin", write("range.bin", content));
+
+        try (InputStream in = store.open(location, 100, 50)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 100, 150), StreamUtils.copyToByteArray(in));
+        }
+        try (InputStream in = store.open(location, 9_000, -1)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 9_000, content.length), StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    @Test
+    void presignedDownloadServesTheObject() throws IOException {
+        byte[] content = randomBytes(4096);
+        String location = store.put("report.pdf", write("report.pdf", content));
+
+        Optional<URI> url = store.presignedDownload(location, "报告.pdf", "application/pdf", Duration.ofMinutes(5));
+
+        assertTrue(url.isPresent());
+        HttpURLConnection connection = (HttpURLConnection) url.get().toURL().openConnection();
+        try {
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("application/pdf", connection.getContentType());
+            assertTrue(connection.getHeaderField("Content-Disposition").startsWith("attachment"));
+            try (InputStream in = connection.getInputStream()) {
+                assertArrayEquals(content, StreamUtils.copyToByteArray(in));
+            }
+        } finally {
+            connection.disconnect();
+        }
+        // 本地位置没有预签名地址，由应用自己提供下载
+        assertFalse(store.presignedDownload(tempDir.resolve("local.bin").toString(), "local.bin",
+                "application/octet-stream", Duration.ofMinutes(5)).isPresent());
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}